@@ -0,0 +1,31 @@
+package com.github.kokoachino.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+/**
+ * 批量任务执行方式枚举
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+@Getter
+@AllArgsConstructor
+public enum BatchTaskModeEnum {
+
+    CLIENT("client", "前端执行"),
+    SERVER("server", "服务端渲染");
+
+    private final String value;
+    private final String desc;
+
+    public static BatchTaskModeEnum fromValue(String value) {
+        for (BatchTaskModeEnum mode : BatchTaskModeEnum.values()) {
+            if (mode.getValue().equals(value)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
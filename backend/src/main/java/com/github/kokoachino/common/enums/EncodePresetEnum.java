@@ -0,0 +1,64 @@
+package com.github.kokoachino.common.enums;
+
+import lombok.Getter;
+
+
+/**
+ * 图片编码预设枚举
+ * PNG 压缩质量按 ImageIO 语义：1.0 为最快（不压缩），0.0 为最高压缩级别
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-22
+ */
+@Getter
+public enum EncodePresetEnum {
+
+    FAST("fast", "速度优先", 0.80f, false, false, 0.75f),
+    BALANCED("balanced", "均衡", 0.90f, false, true, 0.5f),
+    HIGH("high", "质量优先", 0.95f, true, true, 0.0f);
+
+    private final String value;
+    private final String description;
+
+    /**
+     * JPEG 质量（0-1）
+     */
+    private final float jpegQuality;
+
+    /**
+     * JPEG 是否渐进式编码
+     */
+    private final boolean jpegProgressive;
+
+    /**
+     * JPEG 是否优化哈夫曼表
+     */
+    private final boolean jpegOptimize;
+
+    /**
+     * PNG 压缩质量（0-1）
+     */
+    private final float pngCompression;
+
+    EncodePresetEnum(String value, String description, float jpegQuality, boolean jpegProgressive,
+                     boolean jpegOptimize, float pngCompression) {
+        this.value = value;
+        this.description = description;
+        this.jpegQuality = jpegQuality;
+        this.jpegProgressive = jpegProgressive;
+        this.jpegOptimize = jpegOptimize;
+        this.pngCompression = pngCompression;
+    }
+
+    public static EncodePresetEnum fromValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return BALANCED;
+        }
+        for (EncodePresetEnum preset : values()) {
+            if (preset.value.equalsIgnoreCase(value)) {
+                return preset;
+            }
+        }
+        return BALANCED;
+    }
+}
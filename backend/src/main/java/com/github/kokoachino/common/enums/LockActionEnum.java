@@ -43,7 +43,12 @@ public enum LockActionEnum {
     /**
      * 草稿保存
      */
-    DRAFT_SAVE("draft：save", "保存草稿");
+    DRAFT_SAVE("draft：save", "保存草稿"),
+
+    /**
+     * 服务端渲染任务恢复
+     */
+    RENDER_RESUME("render：resume", "恢复渲染任务");
 
     private final String code;
     private final String desc;
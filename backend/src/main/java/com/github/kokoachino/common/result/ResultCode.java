@@ -108,6 +108,7 @@ public enum ResultCode {
     BATCH_TASK_NOT_FOUND(4000, "批量任务不存在"),
     BATCH_TASK_SUBMIT_FAILED(4001, "任务提交失败"),
     TASK_ALREADY_COMPLETED(4002, "任务已完成，不能重复操作"),
+    BATCH_TASK_SERVER_RENDERED(4003, "服务端渲染任务由服务端结算，不能手动完成"),
 
     // 4100-4199：Excel解析
     EXCEL_PARSE_ERROR(4100, "Excel解析失败"),
@@ -122,8 +123,15 @@ public enum ResultCode {
     EXCEL_INVALID_DUPLICATE_HANDLING(4109, "无效的重复ID处理策略"),
     EXCEL_INVALID_CHAR_HANDLING(4110, "无效的异常字符处理策略"),
     EXCEL_DUPLICATE_HEADER(4111, "表头重复"),
-
-    // 4200-4299：任务执行（预留）
+    EXCEL_PARSE_BUSY(4112, "Excel解析繁忙，请稍后再试"),
+    EXCEL_PARSE_TIMEOUT(4113, "Excel解析超时，请稍后再试"),
+
+    // 4200-4299：任务执行
+    BATCH_RENDER_IMAGES_EMPTY(4200, "请上传需要处理的图片"),
+    BATCH_RENDER_FAILED(4201, "渲染任务执行失败"),
+    BATCH_RENDER_BINDING_INVALID(4202, "Excel行数据格式错误"),
+    BATCH_RENDER_CHECKPOINT_NOT_FOUND(4203, "渲染任务检查点不存在，无法恢复"),
+    BATCH_RENDER_QUEUE_FULL(4204, "团队渲染队列已满，请等待已提交的任务完成后再试"),
 
     /* ==================== 点数与支付相关 (5000-5999) ==================== */
     // 5000-5099：点数相关
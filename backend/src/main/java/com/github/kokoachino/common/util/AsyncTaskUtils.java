@@ -1,15 +1,21 @@
 package com.github.kokoachino.common.util;
 
+import com.github.kokoachino.config.SystemProperties;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.stereotype.Component;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 
 /**
  * 异步任务工具类
- * 提供通用的异步任务执行能力
+ * 提供通用的异步任务执行能力，任务以阻塞 I/O 为主（邮件、MinIO、汇总上传）。
+ * 支持两种执行模式：平台线程池（有界队列，满时快速失败）与虚拟线程（每个任务一个虚拟线程，以信号量限制同时执行数量，
+ * 超出的任务在虚拟线程内等待许可而不是被拒绝，阻塞 I/O 不再占用稀缺的平台线程）
  *
  * @author Kokoa_Chino
  * @date 2026-02-10
@@ -19,44 +25,76 @@ import java.util.concurrent.*;
 public class AsyncTaskUtils {
 
     /**
-     * 通用异步任务线程池
-     * 核心线程数：4，最大线程数：10，队列容量：200
-     * 拒绝策略：AbortPolicy（快速失败）
+     * 通用异步任务执行器
+     * 平台线程模式：核心线程数 4，最大线程数 10，队列容量 200，拒绝策略 AbortPolicy（快速失败）；
+     * 虚拟线程模式：每个任务一个虚拟线程
      */
-    private final ThreadPoolExecutor executor;
-
-    public AsyncTaskUtils() {
-        this.executor = new ThreadPoolExecutor(
-                4,
-                10,
-                60L,
-                TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(200),
-                new ThreadFactory() {
-                    private int count = 0;
-                    @Override
-                    public Thread newThread(@NotNull Runnable r) {
-                        return new Thread(r, "async-task-thread-" + (++count));
-                    }
-                },
-                new ThreadPoolExecutor.AbortPolicy()
-        );
+    private final ExecutorService executor;
+
+    /**
+     * 是否使用虚拟线程
+     */
+    private final boolean virtual;
+
+    /**
+     * 虚拟线程模式下的并发上限
+     */
+    private final int maxConcurrency;
+
+    /**
+     * 虚拟线程模式下的执行许可
+     */
+    private final Semaphore permits;
+
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final LongAdder completedCount = new LongAdder();
+
+    public AsyncTaskUtils(SystemProperties systemProperties) {
+        SystemProperties.AsyncConfig config = systemProperties.getAsync();
+        this.virtual = Boolean.TRUE.equals(config.getVirtualThreads());
+        this.maxConcurrency = config.getMaxConcurrency() == null || config.getMaxConcurrency() <= 0
+                ? 200
+                : config.getMaxConcurrency();
+        if (virtual) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("async-task-virtual-", 1).factory());
+            this.permits = new Semaphore(maxConcurrency);
+            log.info("异步任务使用虚拟线程执行：maxConcurrency={}", maxConcurrency);
+        } else {
+            this.executor = new ThreadPoolExecutor(
+                    4,
+                    10,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(200),
+                    new ThreadFactory() {
+                        private int count = 0;
+                        @Override
+                        public Thread newThread(@NotNull Runnable r) {
+                            return new Thread(r, "async-task-thread-" + (++count));
+                        }
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+            this.permits = null;
+        }
     }
 
     /**
      * 异步执行任务
      *
      * @param task 任务
-     * @throws RejectedExecutionException 当线程池和队列都满时抛出
+     * @throws RejectedExecutionException 平台线程模式下线程池和队列都满时，或执行器已关闭时抛出
      */
     public void execute(Runnable task) {
-        executor.execute(() -> {
+        executor.execute(limited(() -> {
             try {
                 task.run();
             } catch (Exception e) {
                 log.error("异步任务执行失败", e);
             }
-        });
+            return null;
+        }, () -> log.warn("异步任务等待执行许可时被中断，任务未执行")));
     }
 
     /**
@@ -64,31 +102,109 @@ public class AsyncTaskUtils {
      *
      * @param task 任务
      * @param <T>  返回值类型
-     * @return Future
-     * @throws RejectedExecutionException 当线程池和队列都满时抛出
+     * @return Future，等待执行许可时被中断（如执行器关闭）则被取消
+     * @throws RejectedExecutionException 平台线程模式下线程池和队列都满时，或执行器已关闭时抛出
      */
     public <T> Future<T> submit(Callable<T> task) {
-        return executor.submit(task);
+        FutureTask<T> future = new FutureTask<>(task);
+        executor.execute(limited(() -> {
+            future.run();
+            return null;
+        }, () -> future.cancel(false)));
+        return future;
+    }
+
+    /**
+     * 提交带返回值的异步任务，返回可组合的 CompletableFuture（用于在计算流水线中把阻塞 I/O 阶段交给本执行器）
+     *
+     * @param task 任务，抛出的异常使返回的 Future 异常完成
+     * @param <T>  返回值类型
+     * @return CompletableFuture，等待执行许可时被中断（如执行器关闭）则被取消
+     * @throws RejectedExecutionException 平台线程模式下线程池和队列都满时，或执行器已关闭时抛出
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(limited(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            return null;
+        }, () -> future.cancel(false)));
+        return future;
     }
 
     /**
-     * 获取线程池状态信息（用于监控）
+     * 包装任务：虚拟线程模式下先等待执行许可，并统计执行中、等待中与已完成数量
+     *
+     * @param task        任务
+     * @param onInterrupt 等待许可时被中断、任务不会执行时的回调（取消调用方持有的 Future，避免调用方永久等待）
+     */
+    private Runnable limited(Callable<Void> task, Runnable onInterrupt) {
+        if (!virtual) {
+            return () -> {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    log.error("异步任务执行失败", e);
+                } finally {
+                    completedCount.increment();
+                }
+            };
+        }
+        return () -> {
+            waitingCount.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                waitingCount.decrementAndGet();
+                Thread.currentThread().interrupt();
+                onInterrupt.run();
+                return;
+            }
+            waitingCount.decrementAndGet();
+            runningCount.incrementAndGet();
+            try {
+                task.call();
+            } catch (Exception e) {
+                log.error("异步任务执行失败", e);
+            } finally {
+                runningCount.decrementAndGet();
+                completedCount.increment();
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * 获取执行器状态信息（用于监控）
      */
     public ThreadPoolStats getStats() {
+        if (virtual) {
+            int running = runningCount.get();
+            int waiting = waitingCount.get();
+            return new ThreadPoolStats("virtual", running, running + waiting, maxConcurrency, maxConcurrency,
+                    waiting, completedCount.sum());
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
         return new ThreadPoolStats(
-                executor.getActiveCount(),
-                executor.getPoolSize(),
-                executor.getCorePoolSize(),
-                executor.getMaximumPoolSize(),
-                executor.getQueue().size(),
-                executor.getCompletedTaskCount()
+                "platform",
+                pool.getActiveCount(),
+                pool.getPoolSize(),
+                pool.getCorePoolSize(),
+                pool.getMaximumPoolSize(),
+                pool.getQueue().size(),
+                completedCount.sum()
         );
     }
 
     /**
-     * 线程池统计信息
+     * 执行器统计信息
+     * 虚拟线程模式下 poolSize 为已创建的虚拟线程数，queueSize 为等待执行许可的任务数，核心与最大线程数均为并发上限
      */
     public record ThreadPoolStats(
+            String mode,
             int activeCount,
             int poolSize,
             int corePoolSize,
@@ -98,7 +214,7 @@ public class AsyncTaskUtils {
     ) {}
 
     /**
-     * 优雅关闭线程池
+     * 优雅关闭执行器
      */
     @PreDestroy
     public void shutdown() {
@@ -0,0 +1,86 @@
+package com.github.kokoachino.common.util;
+
+import java.awt.Color;
+
+
+/**
+ * 颜色工具类
+ * 解析前端水印配置中的颜色字符串
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+public class ColorUtils {
+
+    /**
+     * 解析颜色字符串
+     * 支持 #rgb、#rrggbb、#rrggbbaa 以及 rgb()/rgba() 格式
+     *
+     * @param value        颜色字符串
+     * @param defaultColor 解析失败时的默认颜色
+     * @return 颜色
+     */
+    public static Color parse(String value, Color defaultColor) {
+        if (value == null || value.isBlank()) {
+            return defaultColor;
+        }
+        String text = value.trim().toLowerCase();
+        try {
+            if (text.startsWith("#")) {
+                return parseHex(text.substring(1), defaultColor);
+            }
+            if (text.startsWith("rgb")) {
+                return parseRgb(text, defaultColor);
+            }
+        } catch (NumberFormatException e) {
+            return defaultColor;
+        }
+        return defaultColor;
+    }
+
+    private static Color parseHex(String hex, Color defaultColor) {
+        switch (hex.length()) {
+            case 3 -> {
+                int r = Integer.parseInt(hex.substring(0, 1), 16);
+                int g = Integer.parseInt(hex.substring(1, 2), 16);
+                int b = Integer.parseInt(hex.substring(2, 3), 16);
+                return new Color(r * 17, g * 17, b * 17);
+            }
+            case 6 -> {
+                return new Color(Integer.parseInt(hex, 16));
+            }
+            case 8 -> {
+                int rgb = Integer.parseInt(hex.substring(0, 6), 16);
+                int alpha = Integer.parseInt(hex.substring(6, 8), 16);
+                return new Color((alpha << 24) | rgb, true);
+            }
+            default -> {
+                return defaultColor;
+            }
+        }
+    }
+
+    private static Color parseRgb(String text, Color defaultColor) {
+        int start = text.indexOf('(');
+        int end = text.indexOf(')');
+        if (start < 0 || end <= start) {
+            return defaultColor;
+        }
+        String[] parts = text.substring(start + 1, end).split(",");
+        if (parts.length < 3) {
+            return defaultColor;
+        }
+        int r = clamp(Integer.parseInt(parts[0].trim()));
+        int g = clamp(Integer.parseInt(parts[1].trim()));
+        int b = clamp(Integer.parseInt(parts[2].trim()));
+        int a = 255;
+        if (parts.length > 3) {
+            a = clamp((int) Math.round(Double.parseDouble(parts[3].trim()) * 255));
+        }
+        return new Color(r, g, b, a);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
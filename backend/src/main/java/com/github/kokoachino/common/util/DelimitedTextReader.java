@@ -0,0 +1,281 @@
+package com.github.kokoachino.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+
+/**
+ * CSV / TSV 文本读取工具
+ * 以固定大小的缓冲区按字节扫描分隔文本，按 RFC 4180 处理引号（引号包裹的字段可包含分隔符与换行，两个连续引号表示一个引号），
+ * 每读到一条记录即交给行处理器，不经过 EasyExcel 的工作簿解析。
+ * 兼容 CRLF、LF 与单独的 CR 换行，忽略 UTF-8 BOM。编码对整个文件只判断一次：以首个含非 ASCII 字节的缓冲区（64KB）为样本，
+ * 是合法 UTF-8 时按 UTF-8 解码，否则整个文件按 GB18030 解码（兼容中文 Excel 导出的 CSV）；此前的内容均为 ASCII，两种编码结果相同。
+ * 样本之后才出现的非法 UTF-8 字节按 UTF-8 替换字符解码，不会中途切换编码导致同一文件混用两种编码。
+ * 与 Excel 读取保持一致：字段值去除首尾空白，所有字段均为空的行被忽略
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-02
+ */
+public final class DelimitedTextReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final Charset FALLBACK_CHARSET = Charset.forName("GB18030");
+
+    private DelimitedTextReader() {
+    }
+
+    /**
+     * 根据文件名判断分隔符
+     *
+     * @param filename 原始文件名
+     * @return .csv 返回逗号，.tsv / .tab 返回制表符，其他文件返回 null
+     */
+    public static Character delimiterOf(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ',';
+        }
+        if (name.endsWith(".tsv") || name.endsWith(".tab")) {
+            return '\t';
+        }
+        return null;
+    }
+
+    /**
+     * 逐行读取分隔文本
+     *
+     * @param in         输入流（由调用方关闭）
+     * @param delimiter  字段分隔符（单字节字符）
+     * @param rowHandler 行处理器
+     * @return 交给行处理器的行数
+     * @throws IOException 读取失败时抛出
+     */
+    public static int read(InputStream in, char delimiter, Consumer<List<String>> rowHandler) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        Scanner scanner = new Scanner((byte) delimiter, rowHandler);
+        boolean first = true;
+        boolean eof = false;
+        while (!eof) {
+            eof = channel.read(buffer) == -1;
+            // 编码确定前先读满缓冲区：以整个缓冲区作为编码判断的样本，首个缓冲区同时满足 BOM 判断需要的 3 个字节
+            if (!eof && buffer.hasRemaining() && !scanner.charsetDetected()) {
+                continue;
+            }
+            buffer.flip();
+            if (first) {
+                skipBom(buffer);
+                first = false;
+            }
+            scanner.detectCharset(buffer.array(), buffer.position(), buffer.limit(), eof);
+            scanner.scan(buffer.array(), buffer.position(), buffer.limit());
+            buffer.clear();
+        }
+        scanner.finish();
+        return scanner.rowCount;
+    }
+
+    private static void skipBom(ByteBuffer buffer) {
+        if (buffer.remaining() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            buffer.position(3);
+        }
+    }
+
+    /**
+     * 字节扫描状态机（跨缓冲区保留当前字段与当前记录）
+     */
+    private static class Scanner {
+
+        private final byte delimiter;
+        private final Consumer<List<String>> rowHandler;
+
+        private byte[] field = new byte[256];
+        private int fieldLength;
+        private List<String> row = new ArrayList<>();
+        private boolean rowHasData;
+
+        /**
+         * 当前字段以引号开头
+         */
+        private boolean quoted;
+
+        /**
+         * 位于引号字段内（遇到配对的结束引号前）
+         */
+        private boolean inQuotes;
+
+        /**
+         * 引号字段内刚读到一个引号，需要看下一个字节判断是转义引号还是结束引号
+         */
+        private boolean pendingQuote;
+
+        /**
+         * 上一条记录以 CR 结束，紧随的 LF 属于同一个换行
+         */
+        private boolean skipLf;
+
+        /**
+         * 整个文件使用的编码（遇到首个非 ASCII 字节前为 null，此前的字段均为 ASCII）
+         */
+        private Charset charset;
+
+        private int rowCount;
+
+        Scanner(byte delimiter, Consumer<List<String>> rowHandler) {
+            this.delimiter = delimiter;
+            this.rowHandler = rowHandler;
+        }
+
+        boolean charsetDetected() {
+            return charset != null;
+        }
+
+        /**
+         * 编码未确定且缓冲区含非 ASCII 字节时判断整个文件的编码：缓冲区是合法 UTF-8 时为 UTF-8，否则为 GB18030。
+         * 缓冲区末尾被截断的多字节序列不视为错误
+         */
+        void detectCharset(byte[] bytes, int from, int to, boolean endOfInput) {
+            if (charset != null) {
+                return;
+            }
+            int i = from;
+            while (i < to && bytes[i] >= 0) {
+                i++;
+            }
+            if (i == to) {
+                return;
+            }
+            CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            ByteBuffer in = ByteBuffer.wrap(bytes, from, to - from);
+            CharBuffer out = CharBuffer.allocate(4096);
+            while (true) {
+                CoderResult result = utf8.decode(in, out, endOfInput);
+                if (result.isError()) {
+                    charset = FALLBACK_CHARSET;
+                    return;
+                }
+                if (!result.isOverflow()) {
+                    break;
+                }
+                out.clear();
+            }
+            charset = StandardCharsets.UTF_8;
+        }
+
+        void scan(byte[] bytes, int from, int to) {
+            for (int i = from; i < to; i++) {
+                byte b = bytes[i];
+                if (skipLf) {
+                    skipLf = false;
+                    if (b == LF) {
+                        continue;
+                    }
+                }
+                if (pendingQuote) {
+                    pendingQuote = false;
+                    if (b == QUOTE) {
+                        append(b);
+                        continue;
+                    }
+                    inQuotes = false;
+                } else if (inQuotes) {
+                    if (b == QUOTE) {
+                        pendingQuote = true;
+                    } else {
+                        append(b);
+                    }
+                    continue;
+                }
+                if (b == delimiter) {
+                    endField();
+                } else if (b == LF || b == CR) {
+                    endField();
+                    endRecord();
+                    skipLf = b == CR;
+                } else if (b == QUOTE && fieldLength == 0 && !quoted) {
+                    quoted = true;
+                    inQuotes = true;
+                } else {
+                    // 结束引号后或未加引号字段中的其他字符按原样保留
+                    append(b);
+                }
+            }
+        }
+
+        /**
+         * 输入结束：未以换行结尾的最后一条记录（含未闭合的引号字段）同样交给行处理器
+         */
+        void finish() {
+            if (fieldLength > 0 || quoted || !row.isEmpty()) {
+                endField();
+                endRecord();
+            }
+        }
+
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                byte[] grown = new byte[field.length * 2];
+                System.arraycopy(field, 0, grown, 0, fieldLength);
+                field = grown;
+            }
+            field[fieldLength++] = b;
+        }
+
+        private void endField() {
+            String value = decode().trim();
+            if (!value.isEmpty()) {
+                rowHasData = true;
+            }
+            row.add(value);
+            fieldLength = 0;
+            quoted = false;
+            inQuotes = false;
+            pendingQuote = false;
+        }
+
+        private void endRecord() {
+            if (rowHasData) {
+                rowCount++;
+                rowHandler.accept(row);
+            }
+            row = new ArrayList<>(row.size());
+            rowHasData = false;
+        }
+
+        private String decode() {
+            if (fieldLength == 0) {
+                return "";
+            }
+            boolean ascii = true;
+            for (int i = 0; i < fieldLength && ascii; i++) {
+                ascii = field[i] >= 0;
+            }
+            if (ascii) {
+                return new String(field, 0, fieldLength, StandardCharsets.US_ASCII);
+            }
+            return new String(field, 0, fieldLength, charset != null ? charset : StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.kokoachino.common.util;
+
+import com.github.kokoachino.common.exception.BizException;
+import com.github.kokoachino.common.result.ResultCode;
+import com.github.kokoachino.config.SystemProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Excel解析线程池
+ * 解析属于CPU与内存密集型任务，同时解析的文件数量由独立线程池限制，与请求线程、通用异步线程池隔离；
+ * 请求线程提交后等待解析完成，队列满时快速失败，提示稍后重试
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-01
+ */
+@Slf4j
+@Component
+public class ExcelParseExecutor {
+
+    /**
+     * 解析线程池
+     * 固定线程数（默认为CPU核数），有界队列；队列满时拒绝（AbortPolicy）
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 排队等待累计时间与最长等待时间（纳秒）
+     */
+    private final LongAdder queueNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    /**
+     * 解析累计耗时（纳秒）
+     */
+    private final LongAdder parseNanos = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public ExcelParseExecutor(SystemProperties systemProperties) {
+        SystemProperties.ExcelParseConfig config = systemProperties.getExcelParse();
+        int threads = config.getThreads() == null || config.getThreads() <= 0
+                ? Runtime.getRuntime().availableProcessors()
+                : config.getThreads();
+        int queueCapacity = config.getQueueCapacity() == null ? 64 : config.getQueueCapacity();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NotNull Runnable r) {
+                        return new Thread(r, "excel-parse-" + count.incrementAndGet());
+                    }
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        log.info("Excel解析线程池已创建：threads={}, queueCapacity={}", threads, queueCapacity);
+    }
+
+    /**
+     * 在解析线程池中执行并等待结果
+     *
+     * @param task 解析任务
+     * @param <T>  返回值类型
+     * @return 解析结果
+     * @throws BizException 队列已满，或解析抛出业务异常时原样抛出
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waited = startedAt - submittedAt;
+                queueNanos.add(waited);
+                maxQueueNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    return task.call();
+                } finally {
+                    parseNanos.add(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new BizException(ResultCode.EXCEL_PARSE_BUSY);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BizException(ResultCode.EXCEL_PARSE_ERROR);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("Excel解析失败", e.getCause());
+            throw new BizException(ResultCode.EXCEL_PARSE_ERROR);
+        }
+    }
+
+    /**
+     * 提交到解析线程池，不等待结果（流式解析由解析线程直接写出响应）
+     * 返回的 Future 在开始解析前被取消时跳过该任务，解析开始后取消不会中断解析
+     *
+     * @param task 解析任务
+     * @param <T>  返回值类型
+     * @return CompletableFuture，解析抛出的异常原样异常完成
+     * @throws BizException 队列已满时抛出
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                long startedAt = System.nanoTime();
+                long waited = startedAt - submittedAt;
+                queueNanos.add(waited);
+                maxQueueNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    parseNanos.add(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new BizException(ResultCode.EXCEL_PARSE_BUSY);
+        }
+        return future;
+    }
+
+    /**
+     * 获取线程池状态信息（用于监控）
+     */
+    public ParsePoolStats getStats() {
+        long completed = executor.getCompletedTaskCount();
+        return new ParsePoolStats(
+                executor.getActiveCount(),
+                executor.getPoolSize(),
+                executor.getQueue().size(),
+                completed,
+                rejectedCount.sum(),
+                completed == 0 ? 0.0 : queueNanos.sum() / 1_000_000.0 / completed,
+                maxQueueNanos.get() / 1_000_000,
+                completed == 0 ? 0.0 : parseNanos.sum() / 1_000_000.0 / completed
+        );
+    }
+
+    /**
+     * Excel解析线程池统计信息
+     *
+     * @param activeCount        正在解析的数量
+     * @param poolSize           线程数
+     * @param queueSize          排队等待的数量
+     * @param completedTaskCount 累计完成数量
+     * @param rejectedCount      累计因队列已满被拒绝的数量
+     * @param avgQueueMillis     平均排队等待时间（毫秒）
+     * @param maxQueueMillis     最长排队等待时间（毫秒）
+     * @param avgParseMillis     平均解析耗时（毫秒）
+     */
+    public record ParsePoolStats(
+            int activeCount,
+            int poolSize,
+            int queueSize,
+            long completedTaskCount,
+            long rejectedCount,
+            double avgQueueMillis,
+            long maxQueueMillis,
+            double avgParseMillis
+    ) {}
+
+    /**
+     * 优雅关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("正在关闭Excel解析线程池...");
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Excel解析线程池已关闭");
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.kokoachino.common.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.common.enums.MappingModeEnum;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.dto.ExcelParseSettingsDTO;
+import com.github.kokoachino.model.vo.ExcelParseResultVO;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Excel解析结果缓存
+ * 以 (文件 SHA-256, 映射模式, 重复ID处理策略, 异常字符处理策略, 文件格式) 为键缓存解析结果，用户反复上传同一份表格时直接返回，
+ * 不再重新读取与校验。结果以 JSON 存入 Redis 并设置过期时间，本节点前置一层按字节数计重的 LRU 缓存；
+ * 序列化后超过单条上限的结果不缓存
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-01
+ */
+@Slf4j
+@Component
+public class ExcelParseResultCache {
+
+    private static final String KEY_PREFIX = "excel：parse-result：";
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final long maxEntryBytes;
+
+    /**
+     * 本地缓存（按序列化后的字节数计重）
+     */
+    private final LruCache<String, CachedResult> localCache;
+
+    private final LongAdder redisHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder storeCount = new LongAdder();
+    private final LongAdder oversizeCount = new LongAdder();
+
+    public ExcelParseResultCache(RedissonClient redissonClient, ObjectMapper objectMapper,
+                                 SystemProperties systemProperties) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        SystemProperties.ExcelParseConfig config = systemProperties.getExcelParse();
+        this.enabled = Boolean.TRUE.equals(config.getResultCacheEnabled());
+        this.ttl = Duration.ofMinutes(config.getResultCacheTtlMinutes());
+        this.maxEntryBytes = config.getResultCacheMaxEntryKb() * 1024L;
+        this.localCache = new LruCache<>(config.getResultCacheLocalMb() * 1024L * 1024L, CachedResult::bytes);
+    }
+
+    /**
+     * 计算缓存键（边读取文件边计算摘要，不整体载入内存）
+     *
+     * @param excelFile   Excel文件
+     * @param mappingMode 映射模式
+     * @param settings    解析设置
+     * @return 缓存键摘要，缓存未启用或读取文件失败时返回 null
+     */
+    public String key(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings) {
+        if (!enabled) {
+            return null;
+        }
+        // 先规范化解析参数：非法参数在此处抛出与解析时相同的业务异常
+        String options = MappingModeEnum.fromValue(mappingMode).name() + "|" + settings.getDuplicateHandlingEnum().name()
+                + "|" + settings.getInvalidCharHandlingEnum().name()
+                + "|" + DelimitedTextReader.delimiterOf(excelFile.getOriginalFilename());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(excelFile.getInputStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            digest.update(("|" + options).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("计算Excel解析结果缓存键失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 查找缓存（先本地后 Redis，Redis 命中时回填本地缓存）
+     *
+     * @param key 缓存键摘要
+     * @return 解析结果，未命中时返回 null
+     */
+    public ExcelParseResultVO get(String key) {
+        if (key == null) {
+            return null;
+        }
+        CachedResult local = localCache.get(key);
+        if (local != null) {
+            return local.result();
+        }
+        try {
+            String json = bucket(key).get();
+            if (json == null) {
+                missCount.increment();
+                return null;
+            }
+            ExcelParseResultVO result = objectMapper.readValue(json, ExcelParseResultVO.class);
+            localCache.put(key, new CachedResult(result, json.length()));
+            redisHitCount.increment();
+            return result;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("读取Excel解析结果缓存失败：key={}", key, e);
+            missCount.increment();
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存，序列化后超过单条上限时跳过
+     *
+     * @param key    缓存键摘要
+     * @param result 解析结果
+     */
+    public void put(String key, ExcelParseResultVO result) {
+        if (key == null) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(result);
+            if (json.length() > maxEntryBytes) {
+                oversizeCount.increment();
+                return;
+            }
+            bucket(key).set(json, ttl);
+            localCache.put(key, new CachedResult(result, json.length()));
+            storeCount.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("写入Excel解析结果缓存失败：key={}", key, e);
+        }
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(KEY_PREFIX + key, StringCodec.INSTANCE);
+    }
+
+    /**
+     * 获取缓存统计信息（本地缓存命中、Redis 命中、未命中、写入与超过单条上限跳过的次数均为本节点累计值）
+     */
+    public ParseCacheStats getStats() {
+        return new ParseCacheStats(enabled, localCache.getStats(), redisHitCount.sum(), missCount.sum(),
+                storeCount.sum(), oversizeCount.sum());
+    }
+
+    /**
+     * 本地缓存条目
+     *
+     * @param result 解析结果
+     * @param bytes  序列化后的字符数（近似字节数，用于计重）
+     */
+    private record CachedResult(ExcelParseResultVO result, long bytes) {}
+
+    /**
+     * Excel解析结果缓存统计信息
+     */
+    public record ParseCacheStats(
+            boolean enabled,
+            LruCache.CacheStats local,
+            long redisHitCount,
+            long missCount,
+            long storeCount,
+            long oversizeCount
+    ) {
+
+        /**
+         * 命中率（本地与 Redis 命中合计）
+         */
+        public double hitRate() {
+            long hits = local.hitCount() + redisHitCount;
+            long total = hits + missCount;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.kokoachino.common.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+
+/**
+ * 本地 LRU 缓存
+ * 基于访问顺序的 LinkedHashMap，按权重（默认每项为1）淘汰最久未使用的条目，并统计命中率；
+ * 同一个键的并发加载只执行一次
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author Kokoa_Chino
+ * @date 2026-02-19
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, Node<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private long totalWeight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 正在加载的键（用于合并同一个键的并发加载）
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 按条目数限制的缓存
+     *
+     * @param maxSize 最大条目数
+     */
+    public LruCache(long maxSize) {
+        this(maxSize, value -> 1L);
+    }
+
+    /**
+     * 按权重限制的缓存
+     *
+     * @param maxWeight 最大总权重
+     * @param weigher   权重计算函数
+     */
+    public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 键
+     * @return 值，不存在时返回 null
+     */
+    public synchronized V get(K key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return node.value;
+    }
+
+    /**
+     * 获取缓存，不存在时加载并放入缓存
+     * 加载过程不持有锁；同一个键的并发未命中合并为一次加载，其余线程等待并共享加载结果（包括加载异常）
+     *
+     * @param key    键
+     * @param loader 加载函数（不能在加载函数中以同一个键重入本缓存）
+     * @return 值
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, created);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            V loaded;
+            synchronized (this) {
+                // 登记加载前其他线程可能刚完成加载
+                Node<V> existing = map.get(key);
+                loaded = existing != null ? existing.value : null;
+            }
+            if (loaded == null) {
+                loaded = loader.apply(key);
+                if (loaded != null) {
+                    synchronized (this) {
+                        Node<V> existing = map.get(key);
+                        if (existing != null) {
+                            loaded = existing.value;
+                        } else {
+                            putInternal(key, loaded);
+                        }
+                    }
+                }
+            }
+            created.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, created);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 放入缓存
+     * 单个条目权重超过上限时不缓存
+     */
+    public synchronized void put(K key, V value) {
+        Node<V> old = map.remove(key);
+        if (old != null) {
+            totalWeight -= old.weight;
+        }
+        putInternal(key, value);
+    }
+
+    /**
+     * 移除缓存
+     */
+    public synchronized V remove(K key) {
+        Node<V> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        totalWeight -= node.weight;
+        return node.value;
+    }
+
+    /**
+     * 按条件移除缓存
+     */
+    public synchronized void removeIf(Predicate<K> predicate) {
+        Iterator<Map.Entry<K, Node<V>>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Node<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                totalWeight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        map.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * 获取缓存统计信息（用于监控）
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(map.size(), totalWeight, maxWeight, hitCount, missCount, evictionCount);
+    }
+
+    private void putInternal(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            return;
+        }
+        map.put(key, new Node<>(value, weight));
+        totalWeight += weight;
+        Iterator<Map.Entry<K, Node<V>>> iterator = map.entrySet().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            Map.Entry<K, Node<V>> eldest = iterator.next();
+            totalWeight -= eldest.getValue().weight;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    private record Node<V>(V value, long weight) {}
+
+    /**
+     * 缓存统计信息
+     */
+    public record CacheStats(
+            int size,
+            long weight,
+            long maxWeight,
+            long hitCount,
+            long missCount,
+            long evictionCount
+    ) {
+
+        /**
+         * 命中率
+         */
+        public double hitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.github.kokoachino.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -28,6 +32,12 @@ public class SystemProperties {
 
     private PointConfig point = new PointConfig();
 
+    private RenderConfig render = new RenderConfig();
+
+    private AsyncConfig async = new AsyncConfig();
+
+    private ExcelParseConfig excelParse = new ExcelParseConfig();
+
     @Data
     public static class CaptchaConfig {
         private Integer width;
@@ -69,4 +79,57 @@ public class SystemProperties {
         private Double price;
         private Integer maxPointsPerOrder;
     }
+
+    @Data
+    public static class AsyncConfig {
+        private Boolean virtualThreads;
+        private Integer maxConcurrency;
+    }
+
+    @Data
+    public static class ExcelParseConfig {
+        private Integer threads;
+        private Integer queueCapacity;
+        private Boolean resultCacheEnabled;
+        private Integer resultCacheTtlMinutes;
+        private Integer resultCacheLocalMb;
+        private Integer resultCacheMaxEntryKb;
+        private Integer streamTimeoutSeconds;
+    }
+
+    @Data
+    public static class RenderConfig {
+        private Integer workerThreads;
+        private Integer queueCapacity;
+        private Integer encoderThreads;
+        private Integer encoderQueueCapacity;
+        private String encodePreset;
+        private Integer assetTimeout;
+        private Integer assetMaxMb;
+        private List<String> assetAllowedHosts = new ArrayList<>();
+        private Integer configCacheSize;
+        private Integer planCacheSize;
+        private Integer overlayCacheMaxMb;
+        private Integer fontCacheMaxMb;
+        private Integer textShapeCacheSize;
+        private Integer imageCacheMaxMb;
+        private Integer imageEtagTtlSeconds;
+        private Integer tileThresholdMp;
+        private Integer tileHeight;
+        private Integer zipPartSizeMb;
+        private Integer partDownloadAttempts;
+        private Integer queuePrefetch;
+        private Integer queueVisibilityTimeout;
+        private Integer queueMaxDeliveries;
+        private Integer queueMaxDepthPerTeam;
+        private Integer defaultTeamWeight;
+        private Map<Integer, Integer> teamWeights = new HashMap<>();
+        private Integer jobTtlHours;
+        private Integer checkpointInterval;
+        private Boolean resultCacheEnabled;
+        private Integer resultCacheMaxMb;
+        private Integer progressTickMs;
+        private Integer progressStreamTimeoutMinutes;
+        private Integer memoryBudgetMb;
+    }
 }
@@ -3,6 +3,9 @@ package com.github.kokoachino.controller;
 import com.github.kokoachino.common.result.Result;
 import com.github.kokoachino.model.dto.SubmitBatchTaskDTO;
 import com.github.kokoachino.model.vo.BatchTaskVO;
+import com.github.kokoachino.model.vo.RenderProgressVO;
+import com.github.kokoachino.model.vo.RenderStatsVO;
+import com.github.kokoachino.service.BatchRenderService;
 import com.github.kokoachino.service.BatchTaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,11 +17,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
 
 
 /**
  * 批量任务控制器
  * 设计原则：前端负责执行任务，后端只负责点数管理和任务完成后的结算
+ * 另支持服务端渲染模式：上传源图片后由服务端渲染线程池执行并自动结算
  *
  * @author Kokoa_Chino
  * @date 2026-02-10
@@ -30,6 +36,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class BatchTaskController {
 
     private final BatchTaskService batchTaskService;
+    private final BatchRenderService batchRenderService;
 
     @PostMapping("/submit")
     @Operation(summary = "提交批量任务", description = "提交批量任务，预扣点数，获取任务ID用于后续完成回调")
@@ -39,7 +46,7 @@ public class BatchTaskController {
     }
 
     @PostMapping(value = "/complete", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    @Operation(summary = "完成任务", description = "前端处理完成后调用，上传结果ZIP文件，后端存储并结算点数")
+    @Operation(summary = "完成任务", description = "前端处理完成后调用，上传结果ZIP文件，后端存储并结算点数；服务端渲染任务由服务端自动结算，不能调用此接口")
     public Result<String> completeTask(
             @RequestParam @NotNull @Parameter(description = "任务ID") Integer taskId,
             @RequestParam @NotNull @Min(0) @Parameter(description = "成功处理数量") Integer successCount,
@@ -48,4 +55,40 @@ public class BatchTaskController {
         batchTaskService.completeTask(taskId, successCount, resultZip, reportJson);
         return Result.success("任务完成，点数已结算");
     }
+
+    @PostMapping(value = "/render", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "提交服务端渲染任务", description = "上传源图片并指定水印模板（可附带Excel行数据按行代入水印内容），预扣点数后由服务端异步渲染，完成后自动打包结果并结算点数")
+    public Result<BatchTaskVO> submitRenderTask(
+            @RequestParam @NotNull @Parameter(description = "水印模板ID") Integer templateId,
+            @RequestParam(required = false) @Parameter(description = "任务描述") String description,
+            @RequestParam @Parameter(description = "源图片列表") List<MultipartFile> images,
+            @RequestParam(required = false) @Parameter(description = "Excel行数据（Excel解析结果中的configs JSON）") String bindings,
+            @RequestParam(required = false) @Parameter(description = "Excel映射模式：id/order，默认id") String mappingMode) {
+        BatchTaskVO vo = batchRenderService.submitRenderTask(templateId, description, images, bindings, mappingMode);
+        return Result.success(vo);
+    }
+
+    @GetMapping("/render/{taskId}/progress")
+    @Operation(summary = "查询服务端渲染进度", description = "返回图片总数与已处理数量（含失败）")
+    public Result<RenderProgressVO> getRenderProgress(@PathVariable @Parameter(description = "任务ID") Integer taskId) {
+        return Result.success(batchRenderService.getRenderProgress(taskId));
+    }
+
+    @GetMapping(value = "/render/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅服务端渲染进度", description = "以 SSE 事件流按固定周期推送已处理、失败数量、吞吐量与预计剩余时间（progress 事件），任务结算后推送 settled 事件并关闭连接")
+    public SseEmitter subscribeRenderProgress(@PathVariable @Parameter(description = "任务ID") Integer taskId) {
+        return batchRenderService.subscribeRenderProgress(taskId);
+    }
+
+    @PostMapping("/render/{taskId}/resume")
+    @Operation(summary = "恢复服务端渲染任务", description = "跳过已完成的图片，只重新渲染未完成的部分，不重复预扣点数")
+    public Result<RenderProgressVO> resumeRenderTask(@PathVariable @Parameter(description = "任务ID") Integer taskId) {
+        return Result.success(batchRenderService.resumeRenderTask(taskId));
+    }
+
+    @GetMapping("/render/stats")
+    @Operation(summary = "获取服务端渲染统计", description = "查看渲染队列、内存准入、渲染与编码阶段吞吐以及模板配置、渲染计划、水印叠加层、字体、文字排版、图片素材、渲染结果缓存的命中情况")
+    public Result<RenderStatsVO> getRenderStats() {
+        return Result.success(batchRenderService.getRenderStats());
+    }
 }
@@ -1,16 +1,33 @@
 package com.github.kokoachino.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.common.exception.BizException;
 import com.github.kokoachino.common.result.Result;
+import com.github.kokoachino.common.result.ResultCode;
+import com.github.kokoachino.config.SystemProperties;
 import com.github.kokoachino.model.dto.ExcelParseSettingsDTO;
 import com.github.kokoachino.model.vo.ExcelParseResultVO;
+import com.github.kokoachino.model.vo.ExcelParseStatsVO;
+import com.github.kokoachino.model.vo.ExcelParseStreamLineVO;
 import com.github.kokoachino.service.ExcelParseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -19,13 +36,21 @@ import org.springframework.web.multipart.MultipartFile;
  * @author Kokoa_Chino
  * @date 2026-02-17
  */
+@Slf4j
 @RestController
 @RequestMapping("/api/excel")
 @RequiredArgsConstructor
 @Tag(name = "Excel解析", description = "Excel配置文件解析接口")
 public class ExcelParseController {
 
+    /**
+     * 流式解析时每输出多少行刷新一次
+     */
+    private static final int FLUSH_INTERVAL = 256;
+
     private final ExcelParseService excelParseService;
+    private final ObjectMapper objectMapper;
+    private final SystemProperties systemProperties;
 
     @PostMapping(value = "/parse", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "解析Excel配置", description = """
@@ -42,9 +67,12 @@ public class ExcelParseController {
             映射模式：
             - id：按图片ID映射，读取id列不为空的行（默认）
             - order：按顺序映射，跳过空行
+            
+            CSV/TSV 编码：整个文件按同一种编码解码，以首个含非 ASCII 字符的 64KB 判断，是合法 UTF-8 时按 UTF-8，否则按 GB18030；
+            该范围之后才出现的非法 UTF-8 字节显示为替换字符（�），请使用单一编码保存文件。
             """)
     public Result<ExcelParseResultVO> parseExcel(
-            @Parameter(description = "Excel文件(.xlsx或.xls)") @RequestParam MultipartFile excelFile,
+            @Parameter(description = "Excel文件(.xlsx或.xls)，也支持CSV(.csv)与TSV(.tsv)文本") @RequestParam MultipartFile excelFile,
             @Parameter(description = "映射模式：id-按图片ID映射，order-按顺序映射（默认：id）", example = "id") 
             @RequestParam(defaultValue = "id") String mappingMode,
             @Parameter(description = "重复ID处理策略：first-保留第一个，last-保留最后一个，error-报错终止（默认：first）", example = "first") 
@@ -57,4 +85,169 @@ public class ExcelParseController {
         ExcelParseResultVO result = excelParseService.parseExcel(excelFile, mappingMode, settings);
         return Result.success(result);
     }
+
+    @PostMapping(value = "/parse/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式解析Excel配置", description = """
+            与解析Excel配置相同的规则，以 NDJSON 流式返回：每解析出一条图片配置立即输出一行 {"type":"config","config":{...}}，
+            最后输出一行 {"type":"summary","validRowCount":N,"code":200}。
+            
+            解析中途出错或超时（含排队等待时间，见 system.excel-parse.stream-timeout-seconds）时已输出的配置行保留，
+            summary 行的 code 为错误码、errors 为错误信息、validRowCount 为已输出的配置行数。
+            没有以 summary 行结尾的输出是被截断的（连接中断），不能当作完整结果使用。
+            重复ID按保留最后一个处理时，同一图片ID以后出现的配置行为准。
+            """)
+    public ResponseEntity<ResponseBodyEmitter> parseExcelStream(
+            @Parameter(description = "Excel文件(.xlsx或.xls)，也支持CSV(.csv)与TSV(.tsv)文本") @RequestParam MultipartFile excelFile,
+            @Parameter(description = "映射模式：id-按图片ID映射，order-按顺序映射（默认：id）", example = "id")
+            @RequestParam(defaultValue = "id") String mappingMode,
+            @Parameter(description = "重复ID处理策略：first-保留第一个，last-保留最后一个，error-报错终止（默认：first）", example = "first")
+            @RequestParam(required = false) String duplicateHandling,
+            @Parameter(description = "异常字符处理策略：underscore-用下划线替代，error_folder-统一放到ERROR文件夹，error-报错终止（默认：underscore）", example = "underscore")
+            @RequestParam(required = false) String invalidCharHandling) {
+        ExcelParseSettingsDTO settings = new ExcelParseSettingsDTO();
+        settings.setDuplicateHandling(duplicateHandling);
+        settings.setInvalidCharHandling(invalidCharHandling);
+        Integer timeoutSeconds = systemProperties.getExcelParse().getStreamTimeoutSeconds();
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(
+                TimeUnit.SECONDS.toMillis(timeoutSeconds == null || timeoutSeconds <= 0 ? 300 : timeoutSeconds));
+        NdjsonStream stream = new NdjsonStream(emitter);
+        CompletableFuture<Integer> parse;
+        try {
+            parse = excelParseService.parseExcelAsync(excelFile, mappingMode, settings, stream::config);
+        } catch (BizException e) {
+            stream.finish(e.getResultCode().getCode(), List.of(e.getMessage()), null, false);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+        }
+        // 超时由容器线程写出 summary 行；尚未开始的解析直接跳过，解析中的在下次输出时终止
+        emitter.onTimeout(() -> {
+            parse.cancel(false);
+            stream.finish(ResultCode.EXCEL_PARSE_TIMEOUT.getCode(), List.of(ResultCode.EXCEL_PARSE_TIMEOUT.getMessage()),
+                    null, false);
+        });
+        emitter.onError(e -> {
+            parse.cancel(false);
+            stream.close();
+        });
+        parse.whenComplete((validRowCount, e) -> {
+            if (e == null) {
+                stream.finish(ResultCode.SUCCESS.getCode(), null, validRowCount, true);
+            } else if (e instanceof BizException bizException) {
+                stream.finish(bizException.getResultCode().getCode(), List.of(bizException.getMessage()), null, true);
+            } else if (!stream.isClosed()) {
+                log.error("Excel流式解析失败", e);
+                stream.finish(ResultCode.EXCEL_PARSE_ERROR.getCode(), List.of(ResultCode.EXCEL_PARSE_ERROR.getMessage()),
+                        null, true);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    @GetMapping("/parse/stats")
+    @Operation(summary = "获取Excel解析统计", description = "查看解析线程池的并发数、排队数量、拒绝次数、平均与最长排队等待时间，以及解析结果缓存的命中情况")
+    public Result<ExcelParseStatsVO> getParseStats() {
+        return Result.success(excelParseService.getParseStats());
+    }
+
+    /**
+     * NDJSON 输出：配置行在解析线程中按批写出（首行立即发送，之后每 FLUSH_INTERVAL 行发送一次），
+     * summary 行只写出一次，写出后关闭事件流；关闭后再交出配置行时抛出异常终止解析
+     */
+    private class NdjsonStream {
+
+        private final ResponseBodyEmitter emitter;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private int pending;
+        private int sent;
+        private volatile boolean closed;
+
+        NdjsonStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 追加一条配置行（解析线程调用）
+         */
+        void config(ExcelParseResultVO.ImageConfigVO config) {
+            if (closed) {
+                throw new CancellationException("输出已结束");
+            }
+            try {
+                buffer.write(toLine(ExcelParseStreamLineVO.builder()
+                        .type(ExcelParseStreamLineVO.TYPE_CONFIG)
+                        .config(config)
+                        .build()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++pending >= FLUSH_INTERVAL || sent == 0) {
+                flush();
+            }
+        }
+
+        /**
+         * 写出 summary 行并关闭事件流（只有第一次调用生效）
+         *
+         * @param validRowCount 有效数据行数，为 null 时取已写出的配置行数
+         * @param flushPending  是否先写出缓冲的配置行（只能由解析线程或解析结束后调用）
+         */
+        synchronized void finish(int code, List<String> errors, Integer validRowCount, boolean flushPending) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (flushPending) {
+                    flush();
+                }
+                closed = true;
+                emitter.send(toLine(ExcelParseStreamLineVO.builder()
+                        .type(ExcelParseStreamLineVO.TYPE_SUMMARY)
+                        .validRowCount(validRowCount != null ? validRowCount : sent)
+                        .code(code)
+                        .errors(errors)
+                        .build()), MediaType.APPLICATION_NDJSON);
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                // 客户端已断开
+                closed = true;
+                emitter.completeWithError(e);
+            }
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private synchronized void flush() {
+            if (closed) {
+                throw new CancellationException("输出已结束");
+            }
+            if (pending == 0) {
+                return;
+            }
+            try {
+                emitter.send(buffer.toByteArray(), MediaType.APPLICATION_NDJSON);
+            } catch (IOException e) {
+                closed = true;
+                throw new UncheckedIOException(e);
+            } catch (IllegalStateException e) {
+                closed = true;
+                throw e;
+            }
+            sent += pending;
+            pending = 0;
+            buffer.reset();
+        }
+
+        private byte[] toLine(ExcelParseStreamLineVO line) throws IOException {
+            byte[] json = objectMapper.writeValueAsBytes(line);
+            byte[] bytes = Arrays.copyOf(json, json.length + 1);
+            bytes[json.length] = '\n';
+            return bytes;
+        }
+    }
 }
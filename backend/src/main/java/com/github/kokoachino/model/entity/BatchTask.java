@@ -1,6 +1,7 @@
 package com.github.kokoachino.model.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.github.kokoachino.common.enums.BatchTaskModeEnum;
 import lombok.Data;
 import java.time.LocalDateTime;
 
@@ -39,6 +40,13 @@ public class BatchTask {
      */
     private String description;
 
+    /**
+     * 执行方式：前端执行的任务由前端提交结果完成，服务端渲染的任务只能由渲染流程结算
+     *
+     * @see BatchTaskModeEnum
+     */
+    private String mode;
+
     /**
      * 图片总数
      */
@@ -1,8 +1,10 @@
 package com.github.kokoachino.model.vo;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.util.List;
 
 
@@ -14,6 +16,8 @@ import java.util.List;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @Schema(description = "Excel解析结果")
 public class ExcelParseResultVO {
 
@@ -28,6 +32,8 @@ public class ExcelParseResultVO {
      */
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     @Schema(description = "图片配置信息")
     public static class ImageConfigVO {
 
@@ -0,0 +1,26 @@
+package com.github.kokoachino.model.vo;
+
+import com.github.kokoachino.common.util.ExcelParseExecutor;
+import com.github.kokoachino.common.util.ExcelParseResultCache;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * Excel解析运行统计 VO
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-01
+ */
+@Data
+@Builder
+@Schema(description = "Excel解析运行统计")
+public class ExcelParseStatsVO {
+
+    @Schema(description = "解析线程池状态（并发数、排队数量、拒绝次数以及平均与最长排队等待时间）")
+    private ExcelParseExecutor.ParsePoolStats parsePool;
+
+    @Schema(description = "解析结果缓存统计（本地缓存与 Redis 命中、未命中、写入与超过单条上限跳过的次数）")
+    private ExcelParseResultCache.ParseCacheStats resultCache;
+}
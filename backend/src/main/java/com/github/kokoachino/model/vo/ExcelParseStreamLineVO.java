@@ -0,0 +1,41 @@
+package com.github.kokoachino.model.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+
+/**
+ * Excel流式解析结果行 VO（NDJSON 每行一个）
+ * 解析过程中每条配置输出一行 config，最后输出一行 summary；解析中途出错或超时时 summary 携带错误码与错误信息，
+ * 没有以 summary 行结尾的输出是被截断的
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-28
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Excel流式解析结果行")
+public class ExcelParseStreamLineVO {
+
+    public static final String TYPE_CONFIG = "config";
+    public static final String TYPE_SUMMARY = "summary";
+
+    @Schema(description = "行类型：config-图片配置，summary-解析汇总（最后一行）", example = "config")
+    private String type;
+
+    @Schema(description = "图片配置信息（仅 config 行）")
+    private ExcelParseResultVO.ImageConfigVO config;
+
+    @Schema(description = "有效数据行数（仅 summary 行）", example = "50")
+    private Integer validRowCount;
+
+    @Schema(description = "返回码（仅 summary 行，成功为200）", example = "200")
+    private Integer code;
+
+    @Schema(description = "错误信息（仅 summary 行，解析中途出错时返回）", example = "[\"第3行存在重复的图片ID：img001\"]")
+    private List<String> errors;
+}
@@ -0,0 +1,42 @@
+package com.github.kokoachino.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * 服务端渲染进度 VO
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-24
+ */
+@Data
+@Builder
+@Schema(description = "服务端渲染进度")
+public class RenderProgressVO {
+
+    @Schema(description = "任务ID", example = "1")
+    private Integer taskId;
+
+    @Schema(description = "图片总数", example = "1000")
+    private Integer total;
+
+    @Schema(description = "已处理数量（含失败）", example = "900")
+    private Long completed;
+
+    @Schema(description = "失败数量", example = "3")
+    private Long failed;
+
+    @Schema(description = "吞吐量（张/秒，仅进度事件流返回，按订阅后的处理速度计算）", example = "12.5")
+    private Double throughput;
+
+    @Schema(description = "预计剩余时间（秒，仅进度事件流返回）", example = "8")
+    private Long etaSeconds;
+
+    @Schema(description = "任务是否已结算", example = "false")
+    private Boolean settled;
+
+    @Schema(description = "本次恢复重新入队的图片数量（仅恢复接口返回）", example = "100")
+    private Integer requeued;
+}
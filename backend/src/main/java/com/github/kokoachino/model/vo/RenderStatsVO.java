@@ -0,0 +1,61 @@
+package com.github.kokoachino.model.vo;
+
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.render.ImageEncoder;
+import com.github.kokoachino.render.RenderAdmission;
+import com.github.kokoachino.render.RenderProgressHub;
+import com.github.kokoachino.render.RenderQueue;
+import com.github.kokoachino.render.RenderResultCache;
+import com.github.kokoachino.render.RenderWorkerPool;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+
+/**
+ * 服务端渲染运行统计 VO
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+@Data
+@Builder
+@Schema(description = "服务端渲染运行统计")
+public class RenderStatsVO {
+
+    @Schema(description = "渲染阶段线程池状态（含累计忙碌时间）")
+    private RenderWorkerPool.RenderPoolStats workerPool;
+
+    @Schema(description = "渲染内存准入状态（堆内存预算、已占用预算、排队数量与平均等待时间）")
+    private RenderAdmission.AdmissionStats admission;
+
+    @Schema(description = "分布式渲染队列状态（本节点消费者名称、在途单元数、累计领取、认领与确认数量，以及各团队的调度权重、队列深度、等待延迟与服务速率）")
+    private RenderQueue.QueueStats queue;
+
+    @Schema(description = "渲染结果缓存统计（条目数与字节数为全局值，命中与淘汰次数为本节点累计值）")
+    private RenderResultCache.ResultCacheStats resultCache;
+
+    @Schema(description = "渲染进度推送状态（本节点被订阅的任务数与事件流连接数）")
+    private RenderProgressHub.ProgressStats progress;
+
+    @Schema(description = "编码阶段状态（线程池、累计编码数量、耗时与字节数）")
+    private ImageEncoder.EncoderStats encoder;
+
+    @Schema(description = "模板配置缓存统计")
+    private LruCache.CacheStats configCache;
+
+    @Schema(description = "渲染计划缓存统计")
+    private LruCache.CacheStats planCache;
+
+    @Schema(description = "水印叠加层缓存统计（权重单位：字节）")
+    private LruCache.CacheStats overlayCache;
+
+    @Schema(description = "字体缓存统计（权重单位：字节）")
+    private LruCache.CacheStats fontCache;
+
+    @Schema(description = "文字排版缓存统计")
+    private LruCache.CacheStats textShapeCache;
+
+    @Schema(description = "图片水印素材缓存统计（权重单位：字节）")
+    private LruCache.CacheStats imageAssetCache;
+}
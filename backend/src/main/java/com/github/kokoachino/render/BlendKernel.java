@@ -0,0 +1,33 @@
+package com.github.kokoachino.render;
+
+
+/**
+ * 叠加层合成内核
+ * 将预乘 ARGB 叠加层以 SRC_OVER 规则合成到 INT_RGB / INT_ARGB（非预乘）像素数组
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+interface BlendKernel {
+
+    /**
+     * 合成矩形区域
+     *
+     * @param src         叠加层像素（预乘 ARGB）
+     * @param srcOffset   叠加层起始下标
+     * @param srcStride   叠加层行宽
+     * @param dst         目标像素
+     * @param dstOffset   目标起始下标
+     * @param dstStride   目标行宽
+     * @param width       区域宽度
+     * @param height      区域高度
+     * @param dstHasAlpha 目标是否为 INT_ARGB（否则为 INT_RGB）
+     */
+    void blend(int[] src, int srcOffset, int srcStride, int[] dst, int dstOffset, int dstStride,
+               int width, int height, boolean dstHasAlpha);
+
+    /**
+     * 内核名称（用于日志）
+     */
+    String name();
+}
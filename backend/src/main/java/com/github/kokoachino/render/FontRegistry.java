@@ -0,0 +1,168 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.vo.FontVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * 字体注册表
+ * 按字体文件的 MinIO Key 懒加载字体字节并缓存解析后的 java.awt.Font 及其派生字号。
+ * Font.createFont 每次都会落盘临时文件且耗时数十毫秒，渲染时必须经由本注册表获取字体。
+ * 缓存按字体文件字节数计重淘汰。字体文件 Key 每次上传都重新生成且不会被覆盖，因此无需主动失效，已删除字体的条目随 LRU 淘汰；
+ * 加载失败的字体短暂缓存失败结果，避免损坏或不可达的字体地址在每次文字排版缓存未命中时都被重新下载
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+@Slf4j
+@Component
+public class FontRegistry {
+
+    /**
+     * 单个字体保留的派生字号上限（超出后清空重建，防止逐图文字尺寸导致无限增长）
+     */
+    private static final int MAX_DERIVED_FONTS = 64;
+
+    /**
+     * 逻辑字体（未上传字体文件）的名义权重
+     */
+    private static final long LOGICAL_FONT_WEIGHT = 1024;
+
+    /**
+     * 加载失败结果的缓存时间（毫秒），过期后下一次访问重新加载
+     */
+    private static final long FAILURE_TTL_MILLIS = 60_000;
+
+    private final RenderAssetLoader assetLoader;
+    private final LruCache<String, FontEntry> fontCache;
+
+    public FontRegistry(RenderAssetLoader assetLoader, SystemProperties systemProperties) {
+        this.assetLoader = assetLoader;
+        long maxBytes = systemProperties.getRender().getFontCacheMaxMb() * 1024L * 1024L;
+        this.fontCache = new LruCache<>(maxBytes, FontEntry::weight);
+    }
+
+    /**
+     * 获取指定样式与字号的字体
+     *
+     * @param fontVO 字体信息
+     * @param style  字体样式（Font.PLAIN / Font.BOLD）
+     * @param size   字号（像素）
+     * @return 字体，字体文件加载失败时回退为同名逻辑字体
+     */
+    public Font getFont(FontVO fontVO, int style, float size) {
+        FontEntry entry = getEntry(fontVO);
+        if (entry == null) {
+            return fallbackFont(fontVO).deriveFont(style, size);
+        }
+        return entry.derive(style, size);
+    }
+
+    /**
+     * 获取字体缓存统计信息（权重单位：字节）
+     */
+    public LruCache.CacheStats getStats() {
+        return fontCache.getStats();
+    }
+
+    /**
+     * 获取字体缓存条目，加载失败时返回 null（失败结果缓存 FAILURE_TTL_MILLIS 后重新加载）
+     */
+    private FontEntry getEntry(FontVO fontVO) {
+        if (fontVO == null) {
+            return fontCache.get("system：" + Font.SANS_SERIF,
+                    key -> new FontEntry(new Font(Font.SANS_SERIF, Font.PLAIN, 1), LOGICAL_FONT_WEIGHT));
+        }
+        String url = fontVO.getFontUrl();
+        if (url == null || url.isBlank()) {
+            return fontCache.get("system：" + fontVO.getName(),
+                    key -> new FontEntry(fallbackFont(fontVO), LOGICAL_FONT_WEIGHT));
+        }
+        String objectKey = assetLoader.resolveObjectKey(url);
+        String cacheKey = objectKey != null ? objectKey : url;
+        FontEntry entry = fontCache.get(cacheKey, key -> loadEntry(fontVO));
+        if (entry.failed() && System.currentTimeMillis() - entry.failedAt >= FAILURE_TTL_MILLIS) {
+            fontCache.remove(cacheKey);
+            entry = fontCache.get(cacheKey, key -> loadEntry(fontVO));
+        }
+        return entry.failed() ? null : entry;
+    }
+
+    private FontEntry loadEntry(FontVO fontVO) {
+        long start = System.currentTimeMillis();
+        try (InputStream in = assetLoader.openStream(fontVO.getFontUrl())) {
+            byte[] bytes = in.readAllBytes();
+            Font font = Font.createFont(Font.TRUETYPE_FONT, new ByteArrayInputStream(bytes));
+            log.info("字体加载完成：name={}, size={}KB, 耗时={}ms", fontVO.getName(), bytes.length / 1024,
+                    System.currentTimeMillis() - start);
+            return new FontEntry(font, bytes.length);
+        } catch (IOException | FontFormatException | RuntimeException e) {
+            log.warn("加载字体文件失败，回退为系统字体：name={}, url={}", fontVO.getName(), fontVO.getFontUrl(), e);
+            return FontEntry.failure();
+        }
+    }
+
+    private Font fallbackFont(FontVO fontVO) {
+        String name = fontVO != null && fontVO.getName() != null ? fontVO.getName() : Font.SANS_SERIF;
+        return new Font(name, Font.PLAIN, 1);
+    }
+
+    /**
+     * 字体缓存条目：基础字体与派生字号（加载失败的条目基础字体为 null）
+     */
+    private static final class FontEntry {
+
+        private final Font base;
+        private final long weight;
+        private final Map<Long, Font> derived = new ConcurrentHashMap<>();
+
+        /**
+         * 加载失败的时间（加载成功时为 0）
+         */
+        private final long failedAt;
+
+        private FontEntry(Font base, long weight) {
+            this(base, weight, 0);
+        }
+
+        private FontEntry(Font base, long weight, long failedAt) {
+            this.base = base;
+            this.weight = weight;
+            this.failedAt = failedAt;
+        }
+
+        private static FontEntry failure() {
+            return new FontEntry(null, LOGICAL_FONT_WEIGHT, System.currentTimeMillis());
+        }
+
+        private boolean failed() {
+            return base == null;
+        }
+
+        private long weight() {
+            return weight;
+        }
+
+        private Font derive(int style, float size) {
+            long key = ((long) style << 32) | (Float.floatToIntBits(size) & 0xFFFFFFFFL);
+            Font font = derived.get(key);
+            if (font != null) {
+                return font;
+            }
+            if (derived.size() >= MAX_DERIVED_FONTS) {
+                derived.clear();
+            }
+            return derived.computeIfAbsent(key, k -> base.deriveFont(style, size));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import org.springframework.stereotype.Component;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * 图片水印素材缓存
+ * 每个素材只解码一次，并预先生成逐级减半的缩放链（mip chain）。渲染时选取不小于目标尺寸的最小层级，
+ * 最终只需一次缩放比例小于 2 的双线性缩放。缓存键为 地址 + ETag，素材更新后自动失效，按解码后字节数计重淘汰。
+ * 地址到 ETag 的映射在本节点缓存一段时间（render.image-etag-ttl-seconds），命中时不再逐行请求素材元数据，
+ * 素材更新后最迟在该时间后生效
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+@Component
+public class ImageAssetCache {
+
+    /**
+     * 缩放链最小边长，小于该尺寸不再继续减半
+     */
+    private static final int MIN_LEVEL_SIZE = 16;
+
+    /**
+     * 地址到 ETag 映射的缓存条目数
+     */
+    private static final int ETAG_CACHE_SIZE = 4096;
+
+    private final RenderAssetLoader assetLoader;
+    private final LruCache<String, MipChain> assetCache;
+    private final LruCache<String, ETagEntry> etagCache = new LruCache<>(ETAG_CACHE_SIZE);
+    private final long etagTtlMillis;
+
+    public ImageAssetCache(RenderAssetLoader assetLoader, SystemProperties systemProperties) {
+        this.assetLoader = assetLoader;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        long maxBytes = config.getImageCacheMaxMb() * 1024L * 1024L;
+        this.assetCache = new LruCache<>(maxBytes, MipChain::weight);
+        this.etagTtlMillis = config.getImageEtagTtlSeconds() * 1000L;
+    }
+
+    /**
+     * 获取素材缩放链，未命中时下载解码
+     *
+     * @param url 素材地址
+     * @return 缩放链
+     */
+    public MipChain get(String url) {
+        String key = url + "：" + resolveETag(url);
+        return assetCache.get(key, k -> buildChain(assetLoader.loadImage(url)));
+    }
+
+    /**
+     * 获取素材 ETag，缓存未过期时不请求素材元数据（渲染结果缓存键使用同一映射，与实际渲染的素材版本一致）
+     *
+     * @param url 素材地址
+     * @return ETag，外部地址未返回 ETag 时为空串
+     */
+    public String resolveETag(String url) {
+        ETagEntry entry = etagCache.get(url, this::loadETag);
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            etagCache.remove(url);
+            entry = etagCache.get(url, this::loadETag);
+        }
+        return entry.etag();
+    }
+
+    private ETagEntry loadETag(String url) {
+        return new ETagEntry(assetLoader.resolveETag(url), System.currentTimeMillis() + etagTtlMillis);
+    }
+
+    /**
+     * 获取素材缓存统计信息（权重单位：字节）
+     */
+    public LruCache.CacheStats getStats() {
+        return assetCache.getStats();
+    }
+
+    /**
+     * 生成缩放链：第0级为原图（转为预乘 ARGB），此后每级宽高减半
+     */
+    static MipChain buildChain(BufferedImage source) {
+        List<BufferedImage> levels = new ArrayList<>();
+        BufferedImage level = convert(source, source.getWidth(), source.getHeight());
+        levels.add(level);
+        while (level.getWidth() / 2 >= MIN_LEVEL_SIZE && level.getHeight() / 2 >= MIN_LEVEL_SIZE) {
+            level = convert(level, level.getWidth() / 2, level.getHeight() / 2);
+            levels.add(level);
+        }
+        return new MipChain(List.copyOf(levels));
+    }
+
+    private static BufferedImage convert(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 地址到 ETag 的映射
+     *
+     * @param etag      素材 ETag
+     * @param expiresAt 过期时间
+     */
+    private record ETagEntry(String etag, long expiresAt) {}
+
+    /**
+     * 素材缩放链（被多个渲染计划共享，不得修改）
+     *
+     * @param levels 各层级图片，第0级为原始尺寸
+     */
+    public record MipChain(List<BufferedImage> levels) {
+
+        /**
+         * 原始宽度
+         */
+        public int width() {
+            return levels.get(0).getWidth();
+        }
+
+        /**
+         * 原始高度
+         */
+        public int height() {
+            return levels.get(0).getHeight();
+        }
+
+        /**
+         * 选取不小于目标尺寸的最小层级（放大时返回原图）
+         *
+         * @param targetWidth  目标宽度
+         * @param targetHeight 目标高度
+         * @return 层级图片
+         */
+        public BufferedImage select(int targetWidth, int targetHeight) {
+            BufferedImage selected = levels.get(0);
+            for (BufferedImage level : levels) {
+                if (level.getWidth() < targetWidth || level.getHeight() < targetHeight) {
+                    break;
+                }
+                selected = level;
+            }
+            return selected;
+        }
+
+        /**
+         * 内存占用（字节）
+         */
+        public long weight() {
+            long weight = 0;
+            for (BufferedImage level : levels) {
+                weight += (long) level.getWidth() * level.getHeight() * 4;
+            }
+            return weight;
+        }
+    }
+}
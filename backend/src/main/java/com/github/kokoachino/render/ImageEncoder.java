@@ -0,0 +1,255 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.enums.EncodePresetEnum;
+import com.github.kokoachino.config.SystemProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * 图片编码阶段
+ * 渲染线程完成像素合成后将图片交给独立的编码线程池，渲染与编码并行执行；编码队列满时由渲染线程自行编码，形成背压。
+ * 各格式的 ImageWriter 放入对象池复用，编码参数（质量、渐进式、哈夫曼表优化、PNG 压缩级别）由编码预设决定
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-22
+ */
+@Slf4j
+@Component
+public class ImageEncoder {
+
+    /**
+     * 每种格式池中保留的 ImageWriter 上限
+     */
+    private static final int MAX_POOLED_WRITERS = 32;
+
+    private final ThreadPoolExecutor executor;
+    private final EncodePresetEnum preset;
+    private final Map<String, Queue<ImageWriter>> writerPool = new ConcurrentHashMap<>();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder encodedCount = new LongAdder();
+
+    public ImageEncoder(SystemProperties systemProperties) {
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        int threads = config.getEncoderThreads() == null || config.getEncoderThreads() <= 0
+                ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2)
+                : config.getEncoderThreads();
+        int queueCapacity = config.getEncoderQueueCapacity() == null ? 64 : config.getEncoderQueueCapacity();
+        this.preset = EncodePresetEnum.fromValue(config.getEncodePreset());
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NotNull Runnable r) {
+                        return new Thread(r, "render-encoder-" + count.incrementAndGet());
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        log.info("图片编码线程池已创建：threads={}, queueCapacity={}, preset={}", threads, queueCapacity, preset.getValue());
+    }
+
+    /**
+     * 异步编码图片并写入文件
+     *
+     * @param image  图片
+     * @param format 输出格式（jpg / png）
+     * @param target 目标文件
+     * @return 编码完成的 Future
+     */
+    public CompletableFuture<Void> submit(BufferedImage image, String format, Path target) {
+        return CompletableFuture.runAsync(() -> {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                encode(image, format, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 在当前线程编码图片（分块渲染的懒加载图片必须与解码器在同一线程内顺序读取）
+     *
+     * @param image  图片
+     * @param format 输出格式（jpg / png）
+     * @param out    输出流
+     * @throws IOException 编码失败
+     */
+    public void encode(BufferedImage image, String format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage source = image;
+        if ("jpg".equals(format) && image.getColorModel().hasAlpha()) {
+            source = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = source.createGraphics();
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+            g.dispose();
+        }
+        ImageWriter writer = borrowWriter(format);
+        CountingOutputStream counting = new CountingOutputStream(out);
+        boolean succeeded = false;
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(counting)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(source, null, null), createParam(writer, format));
+            succeeded = true;
+        } finally {
+            // 编码失败的 writer 状态不可信，直接释放不再回池
+            if (succeeded) {
+                returnWriter(format, writer);
+            } else {
+                writer.dispose();
+            }
+        }
+        busyNanos.add(System.nanoTime() - start);
+        encodedBytes.add(counting.count);
+        encodedCount.increment();
+    }
+
+    /**
+     * 获取编码阶段统计信息（用于监控）
+     */
+    public EncoderStats getStats() {
+        int pooled = writerPool.values().stream().mapToInt(Queue::size).sum();
+        return new EncoderStats(
+                executor.getActiveCount(),
+                executor.getPoolSize(),
+                executor.getQueue().size(),
+                encodedCount.sum(),
+                busyNanos.sum() / 1_000_000,
+                encodedBytes.sum(),
+                pooled,
+                preset.getValue()
+        );
+    }
+
+    private ImageWriteParam createParam(ImageWriter writer, String format) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if ("jpg".equals(format)) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(preset.getJpegQuality());
+            if (preset.isJpegProgressive()) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            if (param instanceof JPEGImageWriteParam jpegParam) {
+                jpegParam.setOptimizeHuffmanTables(preset.isJpegOptimize());
+            }
+        } else if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(preset.getPngCompression());
+        }
+        return param;
+    }
+
+    private ImageWriter borrowWriter(String format) throws IOException {
+        ImageWriter writer = writerPool.computeIfAbsent(format, k -> new ConcurrentLinkedQueue<>()).poll();
+        if (writer != null) {
+            return writer;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("不支持的输出格式：" + format);
+        }
+        return writers.next();
+    }
+
+    private void returnWriter(String format, ImageWriter writer) {
+        writer.reset();
+        Queue<ImageWriter> pool = writerPool.get(format);
+        if (pool.size() < MAX_POOLED_WRITERS) {
+            pool.offer(writer);
+        } else {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 编码阶段统计信息
+     */
+    public record EncoderStats(
+            int activeCount,
+            int poolSize,
+            int queueSize,
+            long encodedCount,
+            long busyMillis,
+            long encodedBytes,
+            int pooledWriters,
+            String preset
+    ) {}
+
+    /**
+     * 统计写出字节数的输出流
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * 优雅关闭线程池并释放池中的 ImageWriter
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("正在关闭图片编码线程池...");
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        writerPool.values().forEach(pool -> pool.forEach(ImageWriter::dispose));
+        writerPool.clear();
+        log.info("图片编码线程池已关闭");
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.config.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * 渲染内存准入控制
+ * 源图片解码后的像素占用随尺寸相差两个数量级，仅靠固定线程数无法同时兼顾 CPU 利用率与堆内存安全。
+ * 渲染前只读取图片头估算解码与合成所需的堆内存，按堆内存预算准入：预算不足时按提交顺序排队等待，
+ * 等待期间不占用渲染线程，已占用的预算在编码完成、像素数据不再被引用后归还。
+ * 单个单元的估算值超过整个预算时按整个预算计，保证总能被单独准入
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-27
+ */
+@Slf4j
+@Component
+public class RenderAdmission {
+
+    /**
+     * 整图渲染每像素占用：解码后的源图片与 ARGB 合成结果各 4 字节
+     */
+    private static final int FULL_BYTES_PER_PIXEL = 8;
+
+    /**
+     * 分块渲染每像素占用（按条带计）：原生格式的解码条带与两个轮转的 INT 条带（一个合成中、一个编码中）各约 4 字节
+     */
+    private static final int STRIP_BYTES_PER_PIXEL = 12;
+
+    private final long budgetBytes;
+
+    /**
+     * 剩余预算（受 this 保护）
+     */
+    private long availableBytes;
+
+    /**
+     * 等待准入的请求（按提交顺序，受 this 保护）
+     */
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder waitedCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public RenderAdmission(SystemProperties systemProperties) {
+        Integer budgetMb = systemProperties.getRender().getMemoryBudgetMb();
+        this.budgetBytes = budgetMb == null || budgetMb <= 0
+                ? Runtime.getRuntime().maxMemory() / 2
+                : budgetMb * 1024L * 1024L;
+        this.availableBytes = budgetBytes;
+        log.info("渲染内存准入预算：{}MB", budgetBytes / 1024 / 1024);
+    }
+
+    /**
+     * 按图片尺寸估算渲染期间的堆内存占用
+     *
+     * @param width       图片宽度
+     * @param height      图片高度
+     * @param tiled       是否分块渲染
+     * @param stripHeight 分块渲染条带高度
+     * @return 估算字节数
+     */
+    public long estimate(int width, int height, boolean tiled, int stripHeight) {
+        return tiled
+                ? (long) width * Math.min(height, stripHeight) * STRIP_BYTES_PER_PIXEL
+                : (long) width * height * FULL_BYTES_PER_PIXEL;
+    }
+
+    /**
+     * 申请堆内存预算
+     *
+     * @param bytes 估算字节数
+     * @return 准入后完成的 Future；完成时已占用预算，使用方必须关闭许可归还
+     */
+    public CompletableFuture<Permit> acquire(long bytes) {
+        long requested = Math.min(Math.max(bytes, 0), budgetBytes);
+        synchronized (this) {
+            // 已有等待者时新请求也排队，避免小图片持续插队导致大图片饿死
+            if (waiters.isEmpty() && availableBytes >= requested) {
+                availableBytes -= requested;
+                admittedCount.increment();
+                return CompletableFuture.completedFuture(new Permit(requested));
+            }
+            Waiter waiter = new Waiter(requested, System.nanoTime(), new CompletableFuture<>());
+            waiters.addLast(waiter);
+            waitedCount.increment();
+            return waiter.future();
+        }
+    }
+
+    /**
+     * 归还预算并按提交顺序唤醒能够准入的等待者（在锁外完成 Future，避免在锁内执行后续阶段）
+     */
+    private void release(long bytes) {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            availableBytes += bytes;
+            while (!waiters.isEmpty() && availableBytes >= waiters.peekFirst().bytes()) {
+                Waiter waiter = waiters.pollFirst();
+                availableBytes -= waiter.bytes();
+                ready.add(waiter);
+            }
+        }
+        long now = System.nanoTime();
+        for (Waiter waiter : ready) {
+            admittedCount.increment();
+            waitNanos.add(now - waiter.enqueuedAt());
+            if (!waiter.future().complete(new Permit(waiter.bytes()))) {
+                release(waiter.bytes());
+            }
+        }
+    }
+
+    /**
+     * 获取准入统计信息（用于监控）
+     */
+    public synchronized AdmissionStats getStats() {
+        long waited = waitedCount.sum();
+        return new AdmissionStats(budgetBytes, budgetBytes - availableBytes, waiters.size(),
+                admittedCount.sum(), waited, waited == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / waited);
+    }
+
+    /**
+     * 准入许可，关闭时归还占用的预算（重复关闭无效）
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(bytes);
+            }
+        }
+    }
+
+    private record Waiter(long bytes, long enqueuedAt, CompletableFuture<Permit> future) {}
+
+    /**
+     * 渲染内存准入统计信息
+     *
+     * @param budgetBytes      堆内存预算
+     * @param usedBytes        已占用预算
+     * @param waiting          等待准入的单元数
+     * @param admittedCount    累计准入数量
+     * @param waitedCount      累计需要排队的数量
+     * @param avgWaitMillis    排队单元的平均等待时间（毫秒）
+     */
+    public record AdmissionStats(
+            long budgetBytes,
+            long usedBytes,
+            int waiting,
+            long admittedCount,
+            long waitedCount,
+            double avgWaitMillis
+    ) {}
+}
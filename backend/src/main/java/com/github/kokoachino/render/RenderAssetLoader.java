@@ -0,0 +1,276 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.service.MinioService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.stereotype.Component;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+
+/**
+ * 渲染素材加载器
+ * 负责加载水印渲染所需的图片素材与字体文件流，MinIO 地址直接走 MinIO 客户端下载。
+ * 外部地址只允许访问白名单中的主机，且解析后的地址必须是公网地址（拒绝回环、内网、链路本地等地址），不跟随重定向；
+ * 校验在 HTTP 客户端的 DNS 解析中完成，连接只会使用校验过的地址，避免校验后再次解析被 DNS 重绑定到内网地址；
+ * 所有素材按字节数上限读取，图片解码前先按图片头检查像素数
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+@Slf4j
+@Component
+public class RenderAssetLoader {
+
+    /**
+     * 图片素材像素数上限（BaseConfigDTO 画布上限 5000×5000）
+     */
+    private static final long MAX_IMAGE_PIXELS = 5000L * 5000L;
+
+    private final MinioService minioService;
+    private final long maxBytes;
+
+    /**
+     * 外部素材 HTTP 客户端：直连（不走代理，保证连接地址来自下方 DNS 校验）、不跟随重定向
+     */
+    private final OkHttpClient httpClient;
+
+    /**
+     * 允许下载素材的外部主机（小写），为空时只允许本系统 MinIO 地址
+     */
+    private final Set<String> allowedHosts;
+
+    public RenderAssetLoader(MinioService minioService, SystemProperties systemProperties) {
+        this.minioService = minioService;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        this.maxBytes = config.getAssetMaxMb() * 1024L * 1024L;
+        List<String> hosts = config.getAssetAllowedHosts();
+        this.allowedHosts = hosts == null ? Set.of() : hosts.stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.httpClient = new OkHttpClient.Builder()
+                .dns(RenderAssetLoader::lookupPublic)
+                .proxy(Proxy.NO_PROXY)
+                .followRedirects(false)
+                .followSslRedirects(false)
+                .connectTimeout(config.getAssetTimeout(), TimeUnit.SECONDS)
+                .readTimeout(config.getAssetTimeout(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 加载图片素材
+     *
+     * @param url 图片地址
+     * @return 解码后的图片
+     */
+    public BufferedImage loadImage(String url) {
+        try (InputStream in = openStream(url);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_IMAGE_PIXELS) {
+                    throw new IOException("图片素材像素数超过上限：" + pixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("加载图片素材失败：" + url, e);
+        }
+    }
+
+    /**
+     * 获取素材 ETag
+     * 本系统 MinIO 地址读取对象元数据，外部地址发送 HEAD 请求，服务端未返回 ETag 时返回空串
+     *
+     * @param url 素材地址
+     * @return ETag
+     */
+    public String resolveETag(String url) {
+        String objectKey = resolveObjectKey(url);
+        if (objectKey != null) {
+            return minioService.getETag(objectKey);
+        }
+        try (Response response = execute(url, "HEAD")) {
+            String etag = response.header("ETag");
+            return etag == null ? "" : etag;
+        } catch (IOException e) {
+            log.warn("获取素材ETag失败，按地址缓存：url={}", url, e);
+        }
+        return "";
+    }
+
+    /**
+     * 将 MinIO 访问地址解析为对象Key
+     *
+     * @param url 访问地址
+     * @return 对象Key，非本系统 MinIO 地址时返回 null
+     */
+    public String resolveObjectKey(String url) {
+        String prefix = minioService.getFileUrl("");
+        if (url != null && url.startsWith(prefix)) {
+            return url.substring(prefix.length());
+        }
+        return null;
+    }
+
+    /**
+     * 打开素材流（按字节数上限读取，超过时抛出 IOException）
+     * 本系统 MinIO 地址通过客户端下载，其余仅允许白名单中的 http/https 主机
+     */
+    InputStream openStream(String url) throws IOException {
+        String objectKey = resolveObjectKey(url);
+        if (objectKey != null) {
+            return new BoundedInputStream(minioService.downloadFile(objectKey), maxBytes, url);
+        }
+        Response response = execute(url, "GET");
+        ResponseBody body = response.body();
+        if (body == null) {
+            response.close();
+            throw new IOException("素材下载失败：响应为空");
+        }
+        long length = body.contentLength();
+        if (length > maxBytes) {
+            response.close();
+            throw new IOException("素材大小超过上限：" + length);
+        }
+        // 关闭素材流即关闭响应
+        return new BoundedInputStream(body.byteStream(), maxBytes, url);
+    }
+
+    /**
+     * 请求外部素材
+     * 仅允许白名单中的 http/https 主机，主机解析出的所有地址都必须是公网地址；不跟随重定向，非 2xx 响应按失败处理
+     */
+    private Response execute(String url, String method) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("素材地址格式错误：" + url, e);
+        }
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme) || host == null) {
+            throw new IOException("不支持的素材地址：" + url);
+        }
+        if (!allowedHosts.contains(host.toLowerCase(Locale.ROOT))) {
+            throw new IOException("素材主机不在白名单中：" + host);
+        }
+        Request request = new Request.Builder().url(uri.toURL()).method(method, null).build();
+        Response response = httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IOException("素材下载失败：HTTP " + response.code());
+        }
+        return response;
+    }
+
+    /**
+     * 解析素材主机，解析出的所有地址都必须是公网地址
+     * 作为 HTTP 客户端的 DNS 解析使用，连接只会使用这里返回的地址
+     */
+    static List<InetAddress> lookupPublic(String host) throws UnknownHostException {
+        List<InetAddress> addresses = Dns.SYSTEM.lookup(host);
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new UnknownHostException("素材主机解析为非公网地址：" + host + " -> " + address.getHostAddress());
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * 是否为公网地址（拒绝通配、回环、链路本地、内网、组播、运营商级 NAT 与 IPv6 唯一本地地址）
+     */
+    static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            // fc00::/7 唯一本地地址
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        // 100.64.0.0/10 运营商级 NAT、0.0.0.0/8
+        return !((bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64) && bytes[0] != 0;
+    }
+
+    /**
+     * 按字节数上限读取的输入流
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private final String url;
+        private long count;
+
+        BoundedInputStream(InputStream in, long limit, String url) {
+            super(in);
+            this.limit = limit;
+            this.url = url;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            advance(skipped);
+            return skipped;
+        }
+
+        private void advance(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new IOException("素材大小超过上限：" + url);
+            }
+        }
+    }
+}
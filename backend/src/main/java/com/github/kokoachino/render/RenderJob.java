@@ -0,0 +1,41 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.model.dto.WatermarkConfigDTO;
+import java.util.List;
+
+
+/**
+ * 服务端渲染作业
+ * 一个批量任务对应一个作业，作业内每张源图片为一个渲染单元
+ *
+ * @param taskId          批量任务ID
+ * @param taskNo          任务编号
+ * @param templateId      水印模板ID
+ * @param templateVersion 水印模板版本号
+ * @param config          水印模板配置
+ * @param items           渲染单元列表
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+public record RenderJob(
+        Integer taskId,
+        String taskNo,
+        Integer templateId,
+        Integer templateVersion,
+        WatermarkConfigDTO config,
+        List<Item> items
+) {
+
+    /**
+     * 渲染单元
+     *
+     * @param index      序号
+     * @param fileName   原始文件名
+     * @param sourceKey  源图片 MinIO Key
+     * @param sourceHash 源图片 SHA-256（十六进制，用于渲染结果缓存）
+     * @param entryName  结果压缩包内的条目路径（应用 Excel 行的文件路径、重命名与扩展名）
+     * @param binding    Excel 行绑定数据（未绑定时为 null）
+     */
+    public record Item(int index, String fileName, String sourceKey, String sourceHash, String entryName,
+                       RowBinding binding) {}
+}
@@ -0,0 +1,386 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.dto.WatermarkConfigDTO;
+import com.github.kokoachino.service.MinioService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBitSet;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+
+/**
+ * 分布式渲染作业状态（Redis）
+ * 作业头（模板配置、渲染单元总数）与各渲染单元的结果保存在 Redis Hash 中，任意节点都可以执行渲染单元、
+ * 记录结果并在全部单元完成后汇总。结果按序号写入且只写一次，同一单元被重复投递时不会重复计数。
+ * 单元完成情况另记录在位图中用于查询进度与断点续跑；作业头（含全部渲染单元）在提交时、单元结果每完成固定数量时
+ * 以检查点形式写入 MinIO，Redis 中的作业状态丢失或过期后可从检查点恢复，已完成的单元不会重新渲染
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-23
+ */
+@Slf4j
+@Component
+public class RenderJobStore {
+
+    private static final String JOB_KEY_PREFIX = "render：job：";
+
+    /**
+     * 汇总租约：抢占汇总权的节点超过该时间仍未完成汇总时，允许恢复操作接管
+     */
+    private static final Duration FINALIZER_LEASE = Duration.ofMinutes(30);
+
+    private final RedissonClient redissonClient;
+    private final MinioService minioService;
+    private final ObjectMapper objectMapper;
+    private final Duration jobTtl;
+    private final int checkpointInterval;
+
+    /**
+     * 本地作业头缓存（作业头创建后不再修改，各节点按任务ID缓存反序列化结果）。
+     * 作业可能已由其他节点汇总并删除，命中缓存时仍需确认 Redis 中的作业头存在
+     */
+    private final LruCache<Integer, RenderJob> jobCache = new LruCache<>(64);
+
+    public RenderJobStore(RedissonClient redissonClient, MinioService minioService, ObjectMapper objectMapper,
+                          SystemProperties systemProperties) {
+        this.redissonClient = redissonClient;
+        this.minioService = minioService;
+        this.objectMapper = objectMapper;
+        this.jobTtl = Duration.ofHours(systemProperties.getRender().getJobTtlHours());
+        this.checkpointInterval = Math.max(1, systemProperties.getRender().getCheckpointInterval());
+    }
+
+    /**
+     * 保存作业头，并将作业（含全部渲染单元）写入检查点
+     *
+     * @param job 渲染作业
+     */
+    public void save(RenderJob job) {
+        writeObject(jobCheckpointKey(job.taskNo()), job);
+        writeHeader(job);
+    }
+
+    /**
+     * 加载作业头（不含渲染单元列表）
+     *
+     * @param taskId 任务ID
+     * @return 渲染作业，作业已结束或已过期时返回 null
+     */
+    public RenderJob load(Integer taskId) {
+        RenderJob cached = jobCache.get(taskId);
+        if (cached != null) {
+            if (header(taskId).isExists()) {
+                return cached;
+            }
+            jobCache.remove(taskId);
+            return null;
+        }
+        Map<String, String> fields = header(taskId).readAllMap();
+        if (fields.isEmpty()) {
+            return null;
+        }
+        try {
+            String version = fields.get("templateVersion");
+            RenderJob job = new RenderJob(taskId, fields.get("taskNo"), Integer.valueOf(fields.get("templateId")),
+                    "null".equals(version) ? null : Integer.valueOf(version),
+                    objectMapper.readValue(fields.get("config"), WatermarkConfigDTO.class), List.of());
+            jobCache.put(taskId, job);
+            return job;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("渲染作业数据损坏：taskId=" + taskId, e);
+        }
+    }
+
+    /**
+     * 记录渲染单元结果，并判断当前节点是否负责汇总
+     * 结果只写入一次；全部单元都有结果后，只有一个节点能够抢占到汇总权
+     *
+     * @param taskId 任务ID
+     * @param result 渲染单元结果
+     * @param node   当前节点标识
+     * @return 记录后的进度与当前节点是否负责汇总
+     */
+    public Completion complete(Integer taskId, UnitResult result, String node) {
+        RMap<String, String> results = results(taskId);
+        boolean first = results.fastPutIfAbsent(String.valueOf(result.index()), writeJson(result));
+        // 位图无论是否首次写入都要置位：上次记录结果后、置位前宕机时由重投补齐
+        RBitSet done = doneBits(taskId);
+        done.set(result.index());
+        RAtomicLong failed = failedCount(taskId);
+        RMap<String, String> header = header(taskId);
+        int completed = results.size();
+        long failedCount;
+        if (first) {
+            results.expire(jobTtl);
+            done.expire(jobTtl);
+            failedCount = result.error() == null ? failed.get() : failed.incrementAndGet();
+            failed.expire(jobTtl);
+            if (completed % checkpointInterval == 0) {
+                checkpoint(taskId, header.get("taskNo"));
+            }
+        } else {
+            failedCount = failed.get();
+        }
+        String totalValue = header.get("total");
+        int total = totalValue == null ? completed : Integer.parseInt(totalValue);
+        boolean finalizer = totalValue != null && completed >= total && header.fastPutIfAbsent("finalizer", lease(node));
+        return new Completion(new Progress(total, completed, failedCount), finalizer);
+    }
+
+    /**
+     * 接管汇总权（恢复操作发现全部单元已完成但任务未结算时调用）
+     * 仅当没有节点持有汇总权，或持有者超过租约时间仍未完成时接管成功
+     *
+     * @param taskId 任务ID
+     * @param node   当前节点标识
+     * @return 是否接管成功
+     */
+    public boolean takeOverFinalizer(Integer taskId, String node) {
+        RMap<String, String> header = header(taskId);
+        String current = header.get("finalizer");
+        if (current == null) {
+            return header.fastPutIfAbsent("finalizer", lease(node));
+        }
+        long since = Long.parseLong(current.substring(current.lastIndexOf('@') + 1));
+        if (System.currentTimeMillis() - since < FINALIZER_LEASE.toMillis()) {
+            return false;
+        }
+        return header.replace("finalizer", current, lease(node));
+    }
+
+    /**
+     * 获取已完成（含失败）的渲染单元序号位图
+     *
+     * @param taskId 任务ID
+     * @return 位图
+     */
+    public BitSet completedIndexes(Integer taskId) {
+        return doneBits(taskId).asBitSet();
+    }
+
+    /**
+     * 查询作业进度
+     *
+     * @param taskId 任务ID
+     * @return 进度，作业状态不存在时返回 null
+     */
+    public Progress progress(Integer taskId) {
+        String total = header(taskId).get("total");
+        if (total == null) {
+            return null;
+        }
+        return new Progress(Integer.parseInt(total), doneBits(taskId).cardinality(), failedCount(taskId).get());
+    }
+
+    /**
+     * 将已记录的渲染单元结果写入检查点
+     *
+     * @param taskId 任务ID
+     * @param taskNo 任务编号
+     */
+    public void checkpoint(Integer taskId, String taskNo) {
+        if (taskNo == null) {
+            return;
+        }
+        try {
+            writeObject(resultsCheckpointKey(taskNo), listResults(taskId));
+        } catch (RuntimeException e) {
+            // 检查点只用于恢复，写入失败不影响渲染
+            log.warn("写入渲染检查点失败：taskId={}", taskId, e);
+        }
+    }
+
+    /**
+     * 读取检查点中的作业（含全部渲染单元）
+     *
+     * @param taskNo 任务编号
+     * @return 渲染作业，检查点不存在时返回 null
+     */
+    public RenderJob loadCheckpoint(String taskNo) {
+        return readObject(jobCheckpointKey(taskNo), new TypeReference<>() {});
+    }
+
+    /**
+     * 从检查点恢复 Redis 中的作业状态（作业头、已完成单元结果与位图）
+     *
+     * @param job 检查点中的渲染作业
+     */
+    public void restore(RenderJob job) {
+        List<UnitResult> results = readObject(resultsCheckpointKey(job.taskNo()), new TypeReference<>() {});
+        writeHeader(job);
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        Map<String, String> entries = new HashMap<>();
+        RBitSet done = doneBits(job.taskId());
+        long failed = 0;
+        for (UnitResult result : results) {
+            entries.put(String.valueOf(result.index()), writeJson(result));
+            done.set(result.index());
+            if (result.error() != null) {
+                failed++;
+            }
+        }
+        failedCount(job.taskId()).set(failed);
+        failedCount(job.taskId()).expire(jobTtl);
+        RMap<String, String> resultMap = results(job.taskId());
+        resultMap.putAll(entries);
+        resultMap.expire(jobTtl);
+        done.expire(jobTtl);
+        log.info("已从检查点恢复渲染作业状态：taskId={}, completed={}", job.taskId(), results.size());
+    }
+
+    /**
+     * 读取全部渲染单元结果（按序号排序）
+     *
+     * @param taskId 任务ID
+     * @return 结果列表
+     */
+    public List<UnitResult> listResults(Integer taskId) {
+        List<UnitResult> list = new ArrayList<>();
+        for (String json : results(taskId).readAllValues()) {
+            try {
+                list.add(objectMapper.readValue(json, UnitResult.class));
+            } catch (JsonProcessingException e) {
+                log.error("渲染单元结果数据损坏：taskId={}", taskId, e);
+            }
+        }
+        list.sort(Comparator.comparingInt(UnitResult::index));
+        return list;
+    }
+
+    /**
+     * 删除作业状态与检查点（汇总完成或提交失败时调用）
+     *
+     * @param taskId 任务ID
+     * @param taskNo 任务编号
+     */
+    public void delete(Integer taskId, String taskNo) {
+        jobCache.remove(taskId);
+        redissonClient.getKeys().delete(JOB_KEY_PREFIX + taskId, JOB_KEY_PREFIX + taskId + "：results",
+                JOB_KEY_PREFIX + taskId + "：done", JOB_KEY_PREFIX + taskId + "：failed");
+        for (String key : List.of(jobCheckpointKey(taskNo), resultsCheckpointKey(taskNo))) {
+            try {
+                minioService.deleteFile(key);
+            } catch (Exception e) {
+                log.warn("删除渲染检查点失败：key={}", key);
+            }
+        }
+    }
+
+    private void writeHeader(RenderJob job) {
+        RMap<String, String> header = header(job.taskId());
+        Map<String, String> fields = new HashMap<>();
+        fields.put("taskNo", job.taskNo());
+        fields.put("templateId", String.valueOf(job.templateId()));
+        fields.put("templateVersion", String.valueOf(job.templateVersion()));
+        fields.put("config", writeJson(job.config()));
+        fields.put("total", String.valueOf(job.items().size()));
+        header.putAll(fields);
+        header.expire(jobTtl);
+    }
+
+    private RMap<String, String> header(Integer taskId) {
+        return redissonClient.getMap(JOB_KEY_PREFIX + taskId, StringCodec.INSTANCE);
+    }
+
+    private RMap<String, String> results(Integer taskId) {
+        return redissonClient.getMap(JOB_KEY_PREFIX + taskId + "：results", StringCodec.INSTANCE);
+    }
+
+    private RBitSet doneBits(Integer taskId) {
+        return redissonClient.getBitSet(JOB_KEY_PREFIX + taskId + "：done");
+    }
+
+    private RAtomicLong failedCount(Integer taskId) {
+        return redissonClient.getAtomicLong(JOB_KEY_PREFIX + taskId + "：failed");
+    }
+
+    private static String jobCheckpointKey(String taskNo) {
+        return "batch-results/" + taskNo + "/checkpoint/job.json";
+    }
+
+    private static String resultsCheckpointKey(String taskNo) {
+        return "batch-results/" + taskNo + "/checkpoint/results.json";
+    }
+
+    private static String lease(String node) {
+        return node + "@" + System.currentTimeMillis();
+    }
+
+    private void writeObject(String objectKey, Object value) {
+        byte[] bytes = writeJson(value).getBytes(StandardCharsets.UTF_8);
+        minioService.uploadFile(new ByteArrayInputStream(bytes), bytes.length, "application/json", objectKey);
+    }
+
+    private <T> T readObject(String objectKey, TypeReference<T> type) {
+        try (InputStream in = minioService.downloadFile(objectKey)) {
+            return objectMapper.readValue(in, type);
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取渲染检查点失败：key={}", objectKey, e);
+            return null;
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化渲染作业数据失败", e);
+        }
+    }
+
+    /**
+     * 渲染单元结果
+     *
+     * @param index     序号
+     * @param fileName  原始文件名
+     * @param sourceKey 源图片 MinIO Key
+     * @param entryName 结果压缩包内的条目路径
+     * @param partKey   渲染结果 MinIO Key（失败时为 null）
+     * @param size      渲染结果字节数
+     * @param crc       渲染结果 CRC32（写入 STORED 条目时使用，无需再次读取）
+     * @param error     错误信息
+     */
+    public record UnitResult(
+            int index,
+            String fileName,
+            String sourceKey,
+            String entryName,
+            String partKey,
+            long size,
+            long crc,
+            String error
+    ) {}
+
+    /**
+     * 作业进度
+     *
+     * @param total     渲染单元总数
+     * @param completed 已完成（含失败）的单元数
+     * @param failed    失败的单元数
+     */
+    public record Progress(int total, long completed, long failed) {}
+
+    /**
+     * 渲染单元结果记录情况
+     *
+     * @param progress  记录后的作业进度
+     * @param finalizer 当前节点是否负责汇总
+     */
+    public record Completion(Progress progress, boolean finalizer) {}
+}
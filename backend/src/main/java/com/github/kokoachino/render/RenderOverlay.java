@@ -0,0 +1,24 @@
+package com.github.kokoachino.render;
+
+import java.awt.image.BufferedImage;
+
+
+/**
+ * 预光栅化的水印叠加层
+ * 渲染计划中的全部图层按顺序绘制到透明画布上，只覆盖图层外接矩形区域，渲染时一次性合成到源图片
+ *
+ * @param image 叠加层像素（TYPE_INT_ARGB_PRE）
+ * @param x     叠加层在输出画布上的X坐标
+ * @param y     叠加层在输出画布上的Y坐标
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+public record RenderOverlay(BufferedImage image, int x, int y) {
+
+    /**
+     * 内存占用（字节）
+     */
+    public long weight() {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * 水印叠加层缓存
+ * 按 (模板ID, 版本号, 输出宽高) 缓存预光栅化的叠加层，文字排版、描边与阴影模糊在每种分辨率下只执行一次。
+ * 按像素内存（宽*高*4 字节）计重淘汰，单个叠加层超过上限时不缓存
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+@Component
+public class RenderOverlayCache {
+
+    private final WatermarkRenderer renderer;
+    private final LruCache<String, RenderOverlay> overlayCache;
+
+    public RenderOverlayCache(WatermarkRenderer renderer, SystemProperties systemProperties) {
+        this.renderer = renderer;
+        long maxBytes = systemProperties.getRender().getOverlayCacheMaxMb() * 1024L * 1024L;
+        this.overlayCache = new LruCache<>(maxBytes, RenderOverlay::weight);
+    }
+
+    /**
+     * 获取渲染计划对应的叠加层，未命中时光栅化
+     *
+     * @param plan 渲染计划
+     * @return 叠加层，计划无可见图层时返回 null
+     */
+    public RenderOverlay getOverlay(RenderPlan plan) {
+        String key = plan.templateId() + "：" + plan.version() + "：" + plan.width() + "x" + plan.height();
+        // 无可见图层的计划光栅化结果为 null，不进入缓存（判断开销可忽略）
+        return overlayCache.get(key, k -> renderer.rasterize(plan));
+    }
+
+    /**
+     * 获取模板分段渲染计划对应的叠加层，未命中时光栅化
+     *
+     * @param plan    分段渲染计划
+     * @param segment 分段标识（同一模板版本与输出尺寸下唯一）
+     * @return 叠加层，计划无可见图层时返回 null
+     */
+    public RenderOverlay getOverlay(RenderPlan plan, String segment) {
+        String key = plan.templateId() + "：" + plan.version() + "：" + plan.width() + "x" + plan.height() + "：" + segment;
+        return overlayCache.get(key, k -> renderer.rasterize(plan));
+    }
+
+    /**
+     * 移除模板的全部叠加层（模板删除时调用）
+     *
+     * @param templateId 模板ID
+     */
+    public void evictTemplate(Integer templateId) {
+        String prefix = templateId + "：";
+        overlayCache.removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 获取叠加层缓存统计信息
+     */
+    public LruCache.CacheStats getStats() {
+        return overlayCache.getStats();
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.kokoachino.render;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+
+/**
+ * 编译后的渲染计划
+ * 针对某个模板版本与输出尺寸预先解析颜色、字体、变换矩阵与图层顺序，渲染时只需执行像素绘制。
+ * 计划在缓存中被多个渲染线程共享，创建后不得修改其中的任何对象
+ *
+ * @param templateId 模板ID
+ * @param version    模板版本号
+ * @param width      输出宽度
+ * @param height     输出高度
+ * @param bounds     全部图层在输出画布上的外接矩形（已裁剪到画布内，无图层时为空矩形）
+ * @param layers     图层列表（按绘制顺序，即从底层到顶层）
+ * @author Kokoa_Chino
+ * @date 2026-02-19
+ */
+public record RenderPlan(
+        Integer templateId,
+        Integer version,
+        int width,
+        int height,
+        Rectangle bounds,
+        List<Layer> layers
+) {
+
+    /**
+     * 图层
+     */
+    public sealed interface Layer permits TextLayer, ImageLayer {
+
+        /**
+         * 图层变换（锚点平移 + 旋转）
+         */
+        AffineTransform transform();
+
+        /**
+         * 透明度合成规则
+         */
+        AlphaComposite composite();
+    }
+
+    /**
+     * 文字图层
+     *
+     * @param transform   图层变换
+     * @param composite   透明度合成规则
+     * @param shape       以锚点为中心的文字轮廓（已应用倾斜）
+     * @param fill        填充（单色或渐变）
+     * @param stroke      描边（无描边时为 null）
+     * @param strokeColor 描边颜色
+     * @param shadow      阴影（无阴影时为 null）
+     */
+    public record TextLayer(
+            AffineTransform transform,
+            AlphaComposite composite,
+            Shape shape,
+            Paint fill,
+            BasicStroke stroke,
+            Color strokeColor,
+            Shadow shadow
+    ) implements Layer {}
+
+    /**
+     * 图片图层
+     *
+     * @param transform 图层变换
+     * @param composite 透明度合成规则
+     * @param image     图片素材（缩放链中不小于绘制尺寸的最小层级）
+     * @param width     绘制宽度
+     * @param height    绘制高度
+     */
+    public record ImageLayer(
+            AffineTransform transform,
+            AlphaComposite composite,
+            BufferedImage image,
+            int width,
+            int height
+    ) implements Layer {}
+
+    /**
+     * 文字阴影（已按输出尺寸换算）
+     *
+     * @param color   阴影颜色
+     * @param offsetX X轴偏移（像素）
+     * @param offsetY Y轴偏移（像素）
+     * @param blur    模糊半径（像素）
+     */
+    public record Shadow(Color color, double offsetX, double offsetY, int blur) {}
+}
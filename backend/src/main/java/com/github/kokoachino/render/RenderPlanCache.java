@@ -0,0 +1,118 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.dto.WatermarkConfigDTO;
+import com.github.kokoachino.model.entity.WatermarkTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * 渲染计划缓存
+ * 模板配置按 (模板ID, 版本号) 缓存反序列化结果，渲染计划按 (模板ID, 版本号, 输出宽高) 缓存编译结果。
+ * 模板每次修改都会递增乐观锁版本号，旧版本条目不会再被访问，由 LRU 自然淘汰
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-19
+ */
+@Slf4j
+@Component
+public class RenderPlanCache {
+
+    private final RenderPlanCompiler compiler;
+    private final ObjectMapper objectMapper;
+    private final LruCache<String, WatermarkConfigDTO> configCache;
+    private final LruCache<String, RenderPlan> planCache;
+
+    public RenderPlanCache(RenderPlanCompiler compiler, ObjectMapper objectMapper, SystemProperties systemProperties) {
+        this.compiler = compiler;
+        this.objectMapper = objectMapper;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        this.configCache = new LruCache<>(config.getConfigCacheSize());
+        this.planCache = new LruCache<>(config.getPlanCacheSize());
+    }
+
+    /**
+     * 获取模板配置（只读，不得修改返回的对象）
+     *
+     * @param template 水印模板
+     * @return 模板配置
+     */
+    public WatermarkConfigDTO getConfig(WatermarkTemplate template) {
+        if (template.getVersion() == null) {
+            return parseConfig(template.getConfig());
+        }
+        return configCache.get(template.getId() + "：" + template.getVersion(), key -> parseConfig(template.getConfig()));
+    }
+
+    /**
+     * 获取渲染计划，未命中时编译
+     *
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param config     模板配置
+     * @param width      输出宽度
+     * @param height     输出高度
+     * @return 渲染计划
+     */
+    public RenderPlan getPlan(Integer templateId, Integer version, WatermarkConfigDTO config, int width, int height) {
+        String key = templateId + "：" + version + "：" + width + "x" + height;
+        return planCache.get(key, k -> compiler.compile(templateId, version, config, width, height));
+    }
+
+    /**
+     * 获取模板中一段连续水印的渲染计划，未命中时编译（Excel 行绑定时各行共享的未绑定分段）
+     *
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param config     模板配置
+     * @param from       分段起始下标（包含）
+     * @param to         分段结束下标（不包含）
+     * @param width      输出宽度
+     * @param height     输出高度
+     * @return 渲染计划
+     */
+    public RenderPlan getSegmentPlan(Integer templateId, Integer version, WatermarkConfigDTO config, int from, int to,
+                                     int width, int height) {
+        String key = templateId + "：" + version + "：" + width + "x" + height + "：" + from + "-" + to;
+        return planCache.get(key, k -> compiler.compile(templateId, version, config.getBaseConfig(),
+                config.getWatermarks().subList(from, to), width, height));
+    }
+
+    /**
+     * 移除模板的全部缓存（模板删除时调用）
+     *
+     * @param templateId 模板ID
+     */
+    public void evictTemplate(Integer templateId) {
+        String prefix = templateId + "：";
+        configCache.removeIf(key -> key.startsWith(prefix));
+        planCache.removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 获取渲染计划缓存统计信息
+     */
+    public LruCache.CacheStats getPlanStats() {
+        return planCache.getStats();
+    }
+
+    /**
+     * 获取模板配置缓存统计信息
+     */
+    public LruCache.CacheStats getConfigStats() {
+        return configCache.getStats();
+    }
+
+    private WatermarkConfigDTO parseConfig(String configJson) {
+        try {
+            return objectMapper.readValue(configJson, WatermarkConfigDTO.class);
+        } catch (JsonProcessingException e) {
+            log.error("解析水印配置JSON失败", e);
+            throw new RuntimeException("配置格式错误", e);
+        }
+    }
+}
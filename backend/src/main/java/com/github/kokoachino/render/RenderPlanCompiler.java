@@ -0,0 +1,248 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.util.ColorUtils;
+import com.github.kokoachino.model.dto.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * 渲染计划编译器
+ * 将水印模板配置编译为指定输出尺寸下的渲染计划，坐标与尺寸按模板画布与输出尺寸的比例换算
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-19
+ */
+@Component
+@RequiredArgsConstructor
+public class RenderPlanCompiler {
+
+    /**
+     * 文字排版上下文（与渲染时开启抗锯齿、小数度量的 Graphics2D 一致）
+     */
+    static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    private final ImageAssetCache imageAssetCache;
+    private final TextShapeCache textShapeCache;
+
+    /**
+     * 编译渲染计划
+     *
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param config     水印模板配置
+     * @param width      输出宽度
+     * @param height     输出高度
+     * @return 渲染计划
+     */
+    public RenderPlan compile(Integer templateId, Integer version, WatermarkConfigDTO config, int width, int height) {
+        return compile(templateId, version, config.getBaseConfig(), config.getWatermarks(), width, height);
+    }
+
+    /**
+     * 编译部分水印的渲染计划（Excel 行绑定时用于编译共享分段与被替换的单个水印）
+     *
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param base       模板画布配置
+     * @param watermarks 参与编译的水印（列表首项位于最上层）
+     * @param width      输出宽度
+     * @param height     输出高度
+     * @return 渲染计划
+     */
+    public RenderPlan compile(Integer templateId, Integer version, BaseConfigDTO base, List<WatermarkBaseDTO> watermarks,
+                              int width, int height) {
+        List<RenderPlan.Layer> layers = new ArrayList<>();
+        if (watermarks == null || watermarks.isEmpty()) {
+            return new RenderPlan(templateId, version, width, height, new Rectangle(), List.of());
+        }
+        int canvasWidth = base != null && base.getWidth() != null ? base.getWidth() : width;
+        int canvasHeight = base != null && base.getHeight() != null ? base.getHeight() : height;
+        double scale = Math.min((double) width / canvasWidth, (double) height / canvasHeight);
+        // 水印列表按顺序从后往前渲染，列表首项位于最上层
+        for (int i = watermarks.size() - 1; i >= 0; i--) {
+            WatermarkBaseDTO watermark = watermarks.get(i);
+            if (watermark == null || watermark.getPosition() == null) {
+                continue;
+            }
+            double[] percentage = watermark.getPosition().toPercentage(canvasWidth, canvasHeight);
+            AffineTransform transform = AffineTransform.getTranslateInstance(
+                    percentage[0] / 100.0 * width, percentage[1] / 100.0 * height);
+            if (watermark.getRotation() != null && watermark.getRotation() != 0) {
+                transform.rotate(Math.toRadians(watermark.getRotation()));
+            }
+            float opacity = watermark.getOpacity() == null ? 1f : watermark.getOpacity().floatValue();
+            AlphaComposite composite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity);
+            RenderPlan.Layer layer = null;
+            if (watermark instanceof TextWatermarkDTO text) {
+                layer = compileText(text, transform, composite, scale);
+            } else if (watermark instanceof ImageWatermarkDTO image) {
+                layer = compileImage(image, transform, composite, scale);
+            }
+            if (layer != null) {
+                layers.add(layer);
+            }
+        }
+        Rectangle bounds = new Rectangle();
+        for (RenderPlan.Layer layer : layers) {
+            Rectangle layerBounds = layerBounds(layer);
+            bounds = bounds.isEmpty() ? layerBounds : bounds.union(layerBounds);
+        }
+        bounds = bounds.intersection(new Rectangle(0, 0, width, height));
+        if (bounds.isEmpty()) {
+            bounds = new Rectangle();
+        }
+        return new RenderPlan(templateId, version, width, height, bounds, List.copyOf(layers));
+    }
+
+    /**
+     * 计算图层在输出画布上的外接矩形
+     * 包含描边宽度、阴影偏移与模糊扩散，并额外预留抗锯齿边缘
+     */
+    static Rectangle layerBounds(RenderPlan.Layer layer) {
+        Rectangle2D local;
+        if (layer instanceof RenderPlan.TextLayer text) {
+            local = text.shape().getBounds2D();
+            if (text.stroke() != null) {
+                double grow = text.stroke().getLineWidth() / 2.0;
+                local = new Rectangle2D.Double(local.getX() - grow, local.getY() - grow,
+                        local.getWidth() + grow * 2, local.getHeight() + grow * 2);
+            }
+            RenderPlan.Shadow shadow = text.shadow();
+            if (shadow != null) {
+                double spread = shadow.blur() * 2.0;
+                Rectangle2D shadowBounds = new Rectangle2D.Double(
+                        local.getX() + shadow.offsetX() - spread, local.getY() + shadow.offsetY() - spread,
+                        local.getWidth() + spread * 2, local.getHeight() + spread * 2);
+                local = local.createUnion(shadowBounds);
+            }
+        } else {
+            RenderPlan.ImageLayer image = (RenderPlan.ImageLayer) layer;
+            local = new Rectangle2D.Double(-image.width() / 2, -image.height() / 2, image.width(), image.height());
+        }
+        Rectangle device = layer.transform().createTransformedShape(local).getBounds();
+        device.grow(2, 2);
+        return device;
+    }
+
+    /**
+     * 编译文字图层（轮廓以锚点为中心）
+     */
+    private RenderPlan.TextLayer compileText(TextWatermarkDTO text, AffineTransform transform,
+                                             AlphaComposite composite, double scale) {
+        if (text.getContent() == null || text.getContent().isEmpty()) {
+            return null;
+        }
+        float size = (float) (text.getFontSize() * scale);
+        if (size <= 0) {
+            return null;
+        }
+        Shape shape = textShapeCache.get(text.getContent(), text.getFont(), size, Boolean.TRUE.equals(text.getBold()),
+                text.getSkewAngle() == null ? 0 : text.getSkewAngle()).shape();
+        BasicStroke stroke = null;
+        Color strokeColor = null;
+        StrokeDTO strokeDTO = text.getStroke();
+        if (strokeDTO != null && strokeDTO.getWidth() != null && strokeDTO.getWidth() > 0) {
+            stroke = new BasicStroke((float) (strokeDTO.getWidth() * scale), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            strokeColor = ColorUtils.parse(strokeDTO.getColor(), Color.BLACK);
+        }
+        RenderPlan.Shadow shadow = null;
+        ShadowDTO shadowDTO = text.getShadow();
+        if (shadowDTO != null && shadowDTO.getColor() != null) {
+            shadow = new RenderPlan.Shadow(
+                    ColorUtils.parse(shadowDTO.getColor(), Color.BLACK),
+                    shadowDTO.getOffsetX() == null ? 0 : shadowDTO.getOffsetX() * scale,
+                    shadowDTO.getOffsetY() == null ? 0 : shadowDTO.getOffsetY() * scale,
+                    shadowDTO.getBlur() == null ? 0 : (int) Math.round(shadowDTO.getBlur() * scale));
+        }
+        Paint fill = createFillPaint(text, shape.getBounds2D());
+        return new RenderPlan.TextLayer(transform, composite, shape, fill, stroke, strokeColor, shadow);
+    }
+
+    /**
+     * 编译图片图层（以锚点为中心）
+     */
+    private RenderPlan.ImageLayer compileImage(ImageWatermarkDTO image, AffineTransform transform,
+                                               AlphaComposite composite, double scale) {
+        ImageAssetCache.MipChain asset = imageAssetCache.get(image.getImageUrl());
+        int[] size = resolveImageSize(image, asset.width(), asset.height(), scale);
+        if (size[0] <= 0 || size[1] <= 0) {
+            return null;
+        }
+        return new RenderPlan.ImageLayer(transform, composite, asset.select(size[0], size[1]), size[0], size[1]);
+    }
+
+    /**
+     * 创建文字填充（渐变优先于单色，渐变色标在此烘焙为查找表）
+     */
+    private Paint createFillPaint(TextWatermarkDTO text, Rectangle2D bounds) {
+        GradientDTO gradient = text.getGradient();
+        if (gradient == null || gradient.getStops() == null || gradient.getStops().size() < 2) {
+            return ColorUtils.parse(text.getColor(), Color.BLACK);
+        }
+        List<GradientDTO.GradientStopDTO> stops = gradient.getStops().stream()
+                .filter(stop -> stop.getOffset() != null)
+                .sorted(Comparator.comparing(GradientDTO.GradientStopDTO::getOffset))
+                .toList();
+        float[] fractions = new float[stops.size()];
+        Color[] colors = new Color[stops.size()];
+        float last = -1f;
+        for (int i = 0; i < stops.size(); i++) {
+            // MultipleGradientPaint 要求位置严格递增
+            float offset = (float) Math.max(0, Math.min(1, stops.get(i).getOffset()));
+            fractions[i] = Math.max(offset, Math.nextUp(last));
+            last = fractions[i];
+            colors[i] = ColorUtils.parse(stops.get(i).getColor(), Color.BLACK);
+        }
+        if (stops.size() < 2 || last > 1f) {
+            return colors.length > 0 ? colors[0] : ColorUtils.parse(text.getColor(), Color.BLACK);
+        }
+        if ("radial".equalsIgnoreCase(gradient.getType())) {
+            float radius = (float) Math.max(bounds.getWidth(), bounds.getHeight()) / 2f;
+            return GradientLutPaint.radial(new Point2D.Double(bounds.getCenterX(), bounds.getCenterY()),
+                    Math.max(radius, 1f), fractions, colors);
+        }
+        double angle = Math.toRadians(gradient.getAngle() == null ? 90 : gradient.getAngle());
+        double halfLength = (Math.abs(bounds.getWidth() * Math.sin(angle)) + Math.abs(bounds.getHeight() * Math.cos(angle))) / 2;
+        double dx = Math.sin(angle) * halfLength;
+        double dy = -Math.cos(angle) * halfLength;
+        Point2D start = new Point2D.Double(bounds.getCenterX() - dx, bounds.getCenterY() - dy);
+        Point2D end = new Point2D.Double(bounds.getCenterX() + dx, bounds.getCenterY() + dy);
+        if (start.equals(end)) {
+            return colors[0];
+        }
+        return GradientLutPaint.linear(start, end, fractions, colors);
+    }
+
+    /**
+     * 计算图片水印输出尺寸
+     * 设置宽高时 scale 失效，仅设置一边时按原图比例计算另一边
+     */
+    static int[] resolveImageSize(ImageWatermarkDTO image, int assetWidth, int assetHeight, double scale) {
+        double width;
+        double height;
+        if (image.getWidth() != null && image.getHeight() != null) {
+            width = image.getWidth();
+            height = image.getHeight();
+        } else if (image.getWidth() != null) {
+            width = image.getWidth();
+            height = width * assetHeight / assetWidth;
+        } else if (image.getHeight() != null) {
+            height = image.getHeight();
+            width = height * assetWidth / assetHeight;
+        } else {
+            double ratio = image.getScale() == null ? 1.0 : image.getScale();
+            width = assetWidth * ratio;
+            height = assetHeight * ratio;
+        }
+        return new int[]{(int) Math.round(width * scale), (int) Math.round(height * scale)};
+    }
+}
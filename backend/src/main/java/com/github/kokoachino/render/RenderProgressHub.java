@@ -0,0 +1,318 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.vo.RenderProgressVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * 渲染进度推送中心
+ * 各节点记录渲染单元结果后只在本地合并最新进度，每个推送周期按任务向 Redis 频道发布一次；
+ * 各节点收到进度后只更新本节点有订阅者的任务，并在下一个推送周期统一通过 SSE 推送给订阅者，
+ * 使订阅进度的客户端不再轮询数据库。任务结算后立即发布结算事件并关闭该任务的全部事件流
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-26
+ */
+@Slf4j
+@Component
+public class RenderProgressHub {
+
+    private static final String TOPIC = "render：progress";
+    private static final String EVENT_PROGRESS = "progress";
+    private static final String EVENT_SETTLED = "settled";
+
+    private final RTopic topic;
+    private final ObjectMapper objectMapper;
+    private final long tickMillis;
+    private final long streamTimeoutMillis;
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * 本节点待发布的进度（按任务合并，只保留已处理数量最多的一条）
+     */
+    private final Map<Integer, ProgressEvent> outgoing = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点的订阅频道（任务ID → 频道）
+     */
+    private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+
+    public RenderProgressHub(RedissonClient redissonClient, ObjectMapper objectMapper,
+                             SystemProperties systemProperties) {
+        this.topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        this.objectMapper = objectMapper;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        this.tickMillis = config.getProgressTickMs();
+        this.streamTimeoutMillis = TimeUnit.MINUTES.toMillis(config.getProgressStreamTimeoutMinutes());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "render-progress-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        topic.addListener(String.class, (channel, message) -> receive(message));
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 上报任务进度（在下一个推送周期合并发布）
+     *
+     * @param taskId   任务ID
+     * @param progress 作业进度
+     */
+    public void report(Integer taskId, RenderJobStore.Progress progress) {
+        ProgressEvent event = new ProgressEvent(taskId, progress.total(), progress.completed(), progress.failed(), false);
+        outgoing.merge(taskId, event, (current, next) -> next.completed() >= current.completed() ? next : current);
+    }
+
+    /**
+     * 发布任务结算事件（立即发布，不等待推送周期）
+     *
+     * @param taskId  任务ID
+     * @param total   图片总数
+     * @param success 成功数量
+     */
+    public void settled(Integer taskId, int total, int success) {
+        outgoing.remove(taskId);
+        publish(new ProgressEvent(taskId, total, total, total - success, true));
+    }
+
+    /**
+     * 订阅任务进度
+     * 先注册订阅再读取任务状态：读取之前发布的结算事件已体现在读取到的状态中，读取之后发布的结算事件一定能找到本节点的频道，
+     * 因此不会错过结算事件
+     *
+     * @param taskId 任务ID
+     * @param state  读取任务当前进度（由调用方从数据库与 Redis 作业状态读取）
+     * @return SSE 事件流，任务已结算时发送一次结算事件后立即关闭
+     */
+    public SseEmitter subscribe(Integer taskId, Supplier<ProgressEvent> state) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Channel channel = channels.compute(taskId, (id, current) -> {
+            Channel target = current != null ? current : new Channel();
+            target.emitters.add(emitter);
+            return target;
+        });
+        Runnable detach = () -> detach(taskId, emitter);
+        emitter.onCompletion(detach);
+        emitter.onTimeout(detach);
+        emitter.onError(e -> detach.run());
+        ProgressEvent initial;
+        try {
+            initial = state.get();
+        } catch (RuntimeException e) {
+            detach.run();
+            throw e;
+        }
+        if (initial.settled()) {
+            detach.run();
+            send(emitter, EVENT_SETTLED, Channel.toVO(initial, 0, 0));
+            emitter.complete();
+            return emitter;
+        }
+        channel.update(initial);
+        if (!send(emitter, EVENT_PROGRESS, channel.snapshot())) {
+            detach.run();
+        }
+        return emitter;
+    }
+
+    /**
+     * 推送周期：发布本节点合并后的进度，并向本节点订阅者推送有变化的进度
+     */
+    private void tick() {
+        try {
+            for (Integer taskId : List.copyOf(outgoing.keySet())) {
+                ProgressEvent event = outgoing.remove(taskId);
+                if (event != null) {
+                    publish(event);
+                }
+            }
+            channels.forEach((taskId, channel) -> {
+                RenderProgressVO snapshot = channel.takeChanged();
+                if (snapshot != null) {
+                    broadcast(channel, EVENT_PROGRESS, snapshot);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("推送渲染进度失败", e);
+        }
+    }
+
+    private void publish(ProgressEvent event) {
+        try {
+            topic.publish(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("发布渲染进度失败：taskId={}", event.taskId(), e);
+        }
+    }
+
+    /**
+     * 处理频道消息：只更新本节点有订阅者的任务，结算事件立即推送并关闭事件流
+     */
+    private void receive(String message) {
+        ProgressEvent event;
+        try {
+            event = objectMapper.readValue(message, ProgressEvent.class);
+        } catch (JsonProcessingException e) {
+            log.warn("无法解析渲染进度消息：{}", message);
+            return;
+        }
+        Channel channel = channels.get(event.taskId());
+        if (channel == null) {
+            return;
+        }
+        if (!event.settled()) {
+            channel.update(event);
+            return;
+        }
+        channels.remove(event.taskId(), channel);
+        channel.update(event);
+        broadcast(channel, EVENT_SETTLED, channel.snapshot());
+        channel.emitters.forEach(SseEmitter::complete);
+    }
+
+    private void broadcast(Channel channel, String name, RenderProgressVO data) {
+        for (SseEmitter emitter : channel.emitters) {
+            if (!send(emitter, name, data)) {
+                channel.emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, RenderProgressVO data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或事件流已关闭
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void detach(Integer taskId, SseEmitter emitter) {
+        channels.computeIfPresent(taskId, (id, channel) -> {
+            channel.emitters.remove(emitter);
+            return channel.emitters.isEmpty() ? null : channel;
+        });
+    }
+
+    /**
+     * 获取本节点订阅统计信息
+     */
+    public ProgressStats getStats() {
+        int subscribers = 0;
+        for (Channel channel : channels.values()) {
+            subscribers += channel.emitters.size();
+        }
+        return new ProgressStats(channels.size(), subscribers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        topic.removeAllListeners();
+        channels.values().forEach(channel -> channel.emitters.forEach(SseEmitter::complete));
+        channels.clear();
+    }
+
+    /**
+     * 进度事件（频道消息）
+     *
+     * @param taskId    任务ID
+     * @param total     图片总数
+     * @param completed 已处理数量（含失败）
+     * @param failed    失败数量
+     * @param settled   任务是否已结算
+     */
+    public record ProgressEvent(Integer taskId, int total, long completed, long failed, boolean settled) {}
+
+    /**
+     * 渲染进度订阅统计信息
+     *
+     * @param tasks       本节点被订阅的任务数
+     * @param subscribers 本节点的事件流连接数
+     */
+    public record ProgressStats(int tasks, int subscribers) {}
+
+    /**
+     * 单个任务的订阅频道：保存最新进度，并以首次收到的进度为基准计算吞吐与剩余时间
+     */
+    private static class Channel {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private long baselineMillis;
+        private long baselineCompleted;
+        private ProgressEvent latest;
+        private boolean changed;
+
+        synchronized void update(ProgressEvent event) {
+            if (latest == null) {
+                latest = event;
+                baselineMillis = System.currentTimeMillis();
+                baselineCompleted = event.completed();
+                return;
+            }
+            // 频道消息可能乱序到达，已处理数量只增不减
+            if (event.settled() || event.completed() > latest.completed()) {
+                latest = event;
+                changed = true;
+            }
+        }
+
+        synchronized RenderProgressVO takeChanged() {
+            if (!changed) {
+                return null;
+            }
+            changed = false;
+            return snapshot();
+        }
+
+        synchronized RenderProgressVO snapshot() {
+            return toVO(latest, System.currentTimeMillis() - baselineMillis, latest.completed() - baselineCompleted);
+        }
+
+        static RenderProgressVO toVO(ProgressEvent event, long elapsedMillis, long processed) {
+            Double throughput = null;
+            Long etaSeconds = null;
+            if (!event.settled() && elapsedMillis > 0 && processed > 0) {
+                double rate = processed * 1000.0 / elapsedMillis;
+                throughput = rate;
+                etaSeconds = (long) Math.ceil(Math.max(0, event.total() - event.completed()) / rate);
+            }
+            return RenderProgressVO.builder()
+                    .taskId(event.taskId())
+                    .total(event.total())
+                    .completed(event.completed())
+                    .failed(event.failed())
+                    .throughput(throughput)
+                    .etaSeconds(etaSeconds)
+                    .settled(event.settled())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.PendingEntry;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.ScoredEntry;
+import org.springframework.stereotype.Component;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+
+/**
+ * 分布式渲染队列（Redis Stream 消费组，按团队加权公平调度）
+ * 每张源图片是一个渲染单元消息，按团队写入各自的流，所有后端节点以同一消费组读取，谁有空闲渲染能力谁领取。
+ * 领取时按团队虚拟时间从小到大轮询：每轮每个团队最多领取与其权重相等数量的单元，领取后虚拟时间增加 领取数/权重，
+ * 因此大任务不会饿死其他团队，权重高的团队按比例获得更多渲染能力；团队从空闲变为有积压时虚拟时间追平当前最小值，不累积空闲期的额度。
+ * 领取后的消息在确认前处于待处理状态：处理中的消息定期续期，节点宕机后消息空闲超过可见性超时即被其他节点认领重投，
+ * 超过最大投递次数的消息交给处理器按失败处理，避免毒消息无限重试
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-23
+ */
+@Slf4j
+@Component
+public class RenderQueue {
+
+    private static final String STREAM_KEY_PREFIX = "render：queue：";
+    private static final String VIRTUAL_TIME_KEY = "render：queue：vtime";
+    private static final String GROUP_NAME = "render-workers";
+    private static final int SCAN_PAGE_SIZE = 1000;
+    private static final long IDLE_WAIT_MILLIS = 200;
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final String consumerName;
+    private final int prefetch;
+    private final long visibilityTimeoutMillis;
+    private final Map<Integer, Integer> teamWeights;
+    private final int defaultTeamWeight;
+
+    /**
+     * 有积压的团队及其虚拟时间（分数越小越优先领取）
+     */
+    private final RScoredSortedSet<String> virtualTimes;
+
+    /**
+     * 本节点按团队统计的领取延迟与服务速率
+     */
+    private final Map<Integer, TeamMetrics> teamMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点在途单元数上限（领取消息前获取许可，处理完成后释放）
+     */
+    private final Semaphore permits;
+
+    /**
+     * 本节点处理中的消息（用于续期）
+     */
+    private final Set<InFlight> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder reclaimedCount = new LongAdder();
+    private final LongAdder ackedCount = new LongAdder();
+
+    private final ExecutorService poller;
+    private final ScheduledExecutorService reclaimer;
+    private volatile boolean running;
+    private volatile Function<Unit, CompletableFuture<Void>> handler;
+
+    public RenderQueue(RedissonClient redissonClient, ObjectMapper objectMapper, SystemProperties systemProperties) {
+        this.redissonClient = redissonClient;
+        this.virtualTimes = redissonClient.getScoredSortedSet(VIRTUAL_TIME_KEY, StringCodec.INSTANCE);
+        this.objectMapper = objectMapper;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        int workerThreads = config.getWorkerThreads() == null || config.getWorkerThreads() <= 0
+                ? Runtime.getRuntime().availableProcessors()
+                : config.getWorkerThreads();
+        this.prefetch = config.getQueuePrefetch() == null || config.getQueuePrefetch() <= 0
+                ? workerThreads * 2
+                : config.getQueuePrefetch();
+        this.visibilityTimeoutMillis = config.getQueueVisibilityTimeout() * 1000L;
+        this.teamWeights = config.getTeamWeights() == null ? Map.of() : config.getTeamWeights();
+        this.defaultTeamWeight = Math.max(1, config.getDefaultTeamWeight());
+        this.permits = new Semaphore(prefetch);
+        this.consumerName = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.poller = Executors.newSingleThreadExecutor(r -> new Thread(r, "render-queue-poller"));
+        this.reclaimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "render-queue-reclaimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 发布作业的全部渲染单元到团队队列，并将团队标记为有积压
+     *
+     * @param teamId 团队ID
+     * @param job    渲染作业
+     */
+    public void publish(Integer teamId, RenderJob job) {
+        RStream<String, String> stream = stream(teamId);
+        createGroup(stream);
+        for (RenderJob.Item item : job.items()) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put("taskId", String.valueOf(job.taskId()));
+            fields.put("index", String.valueOf(item.index()));
+            fields.put("fileName", item.fileName());
+            fields.put("sourceKey", item.sourceKey());
+            if (item.sourceHash() != null) {
+                fields.put("sourceHash", item.sourceHash());
+            }
+            fields.put("entryName", item.entryName());
+            if (item.binding() != null) {
+                fields.put("binding", writeJson(item.binding()));
+            }
+            stream.add(StreamAddArgs.entries(fields));
+        }
+        activate(teamId);
+    }
+
+    /**
+     * 查询团队队列深度（未领取与处理中未确认的单元数）
+     *
+     * @param teamId 团队ID
+     * @return 队列深度
+     */
+    public long depth(Integer teamId) {
+        return stream(teamId).size();
+    }
+
+    /**
+     * 团队从空闲变为有积压时，虚拟时间追平当前最小值（已有积压时保持不变）
+     */
+    private void activate(Integer teamId) {
+        Double floor = virtualTimes.firstScore();
+        virtualTimes.addIfGreater(floor == null ? 0 : floor, String.valueOf(teamId));
+    }
+
+    /**
+     * 查询作业仍在队列中（未领取或处理中未确认）的渲染单元序号
+     * 已确认的消息会立即从流中删除，因此流的长度即全局积压量，按页扫描
+     *
+     * @param teamId 团队ID
+     * @param taskId 任务ID
+     * @return 渲染单元序号
+     */
+    public Set<Integer> queuedIndexes(Integer teamId, Integer taskId) {
+        RStream<String, String> stream = stream(teamId);
+        String target = String.valueOf(taskId);
+        Set<Integer> indexes = new HashSet<>();
+        StreamMessageId start = StreamMessageId.MIN;
+        while (true) {
+            Map<StreamMessageId, Map<String, String>> page = stream.range(SCAN_PAGE_SIZE, start, StreamMessageId.MAX);
+            if (page == null || page.isEmpty()) {
+                return indexes;
+            }
+            StreamMessageId last = null;
+            for (Map.Entry<StreamMessageId, Map<String, String>> entry : page.entrySet()) {
+                if (target.equals(entry.getValue().get("taskId"))) {
+                    indexes.add(Integer.valueOf(entry.getValue().get("index")));
+                }
+                last = entry.getKey();
+            }
+            if (page.size() < SCAN_PAGE_SIZE) {
+                return indexes;
+            }
+            start = new StreamMessageId(last.getId0(), last.getId1() + 1);
+        }
+    }
+
+    /**
+     * 开始消费
+     * 处理器返回的 Future 正常完成后确认消息；异常完成时不确认，消息在可见性超时后重投
+     *
+     * @param handler 渲染单元处理器
+     */
+    public synchronized void start(Function<Unit, CompletableFuture<Void>> handler) {
+        if (running) {
+            return;
+        }
+        this.handler = handler;
+        this.running = true;
+        poller.execute(this::pollLoop);
+        long interval = Math.max(1000L, visibilityTimeoutMillis / 3);
+        reclaimer.scheduleWithFixedDelay(this::reclaim, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("分布式渲染队列已启动：consumer={}, prefetch={}, visibilityTimeout={}ms, teamWeights={}",
+                consumerName, prefetch, visibilityTimeoutMillis, teamWeights);
+    }
+
+    /**
+     * 当前节点的消费者名称
+     */
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    /**
+     * 拉取循环：按空闲许可数在各团队之间加权公平地领取从未投递过的消息，没有可领取的消息时短暂等待
+     */
+    private void pollLoop() {
+        while (running) {
+            int acquired = 0;
+            try {
+                permits.acquire();
+                acquired = 1 + permits.drainPermits();
+                int count = pollFair(acquired);
+                permits.release(acquired - count);
+                acquired = 0;
+                if (count == 0) {
+                    Thread.sleep(IDLE_WAIT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                permits.release(acquired);
+                if (running) {
+                    log.warn("拉取渲染队列失败，稍后重试：consumer={}", consumerName, e);
+                    sleepQuietly();
+                }
+            }
+        }
+    }
+
+    /**
+     * 按虚拟时间从小到大轮询有积压的团队，每轮每个团队最多领取与其权重相等数量的单元，直到领满或没有可领取的单元
+     *
+     * @param limit 本次最多领取数量（已获取等量许可）
+     * @return 实际领取数量（已领取的单元在处理完成时释放许可，因此出错时同样只返回已领取数量）
+     */
+    private int pollFair(int limit) {
+        int taken = 0;
+        boolean progressed = true;
+        try {
+            while (taken < limit && progressed) {
+                progressed = false;
+                for (ScoredEntry<String> entry : virtualTimes.entryRange(0, -1)) {
+                    if (taken >= limit) {
+                        break;
+                    }
+                    int count = pollTeam(Integer.valueOf(entry.getValue()), entry.getScore(), limit - taken);
+                    taken += count;
+                    progressed |= count > 0;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("拉取渲染队列失败，稍后重试：consumer={}", consumerName, e);
+        }
+        return taken;
+    }
+
+    /**
+     * 从团队队列领取至多 min(权重, 剩余数量) 个单元，并按 领取数/权重 推进团队虚拟时间
+     */
+    private int pollTeam(Integer teamId, Double score, int remaining) {
+        int weight = weight(teamId);
+        RStream<String, String> stream = stream(teamId);
+        Map<StreamMessageId, Map<String, String>> messages = stream.readGroup(GROUP_NAME, consumerName,
+                StreamReadGroupArgs.neverDelivered().count(Math.min(weight, remaining)));
+        if (messages == null || messages.isEmpty()) {
+            deactivateIfDrained(teamId, stream, score);
+            return 0;
+        }
+        // 先推进虚拟时间再交给处理器：推进失败时消息未派发，由可见性超时后重投
+        virtualTimes.addScore(String.valueOf(teamId), (double) messages.size() / weight);
+        deliveredCount.add(messages.size());
+        long now = System.currentTimeMillis();
+        TeamMetrics metrics = metrics(teamId);
+        messages.forEach((id, fields) -> {
+            // 消息ID的时间部分即入队时间
+            metrics.recordDelivery(now - id.getId0());
+            dispatch(teamId, id, fields, 1);
+        });
+        return messages.size();
+    }
+
+    /**
+     * 团队队列为空（没有未领取也没有处理中的单元）时移出调度集合。
+     * 移出后再检查一次：发布方先写入消息再标记团队，移出与发布交错时由其中一方重新标记
+     */
+    private void deactivateIfDrained(Integer teamId, RStream<String, String> stream, Double score) {
+        if (stream.size() > 0) {
+            return;
+        }
+        String member = String.valueOf(teamId);
+        virtualTimes.remove(member);
+        if (stream.size() > 0) {
+            virtualTimes.addIfGreater(score, member);
+        }
+    }
+
+    /**
+     * 认领与续期：为本节点处理中的消息重置空闲时间，并认领其他节点空闲超过可见性超时的消息
+     */
+    private void reclaim() {
+        if (!running) {
+            return;
+        }
+        int available = 0;
+        try {
+            Map<Integer, List<StreamMessageId>> renewing = new HashMap<>();
+            for (InFlight message : inFlight) {
+                renewing.computeIfAbsent(message.teamId(), k -> new ArrayList<>()).add(message.id());
+            }
+            renewing.forEach((teamId, ids) -> stream(teamId).fastClaim(GROUP_NAME, consumerName, 0,
+                    TimeUnit.MILLISECONDS, ids.toArray(new StreamMessageId[0])));
+            available = permits.drainPermits();
+            // 有处理中消息的团队队列不会为空，因此只需检查调度集合中的团队
+            for (String member : virtualTimes.readAll()) {
+                if (available == 0) {
+                    break;
+                }
+                Integer teamId = Integer.valueOf(member);
+                RStream<String, String> stream = stream(teamId);
+                List<PendingEntry> pending = stream.listPending(GROUP_NAME, StreamMessageId.MIN, StreamMessageId.MAX,
+                        visibilityTimeoutMillis, TimeUnit.MILLISECONDS, available);
+                Map<StreamMessageId, Long> deliveries = new HashMap<>();
+                for (PendingEntry entry : pending) {
+                    deliveries.put(entry.getId(), entry.getLastTimeDelivered());
+                }
+                Map<StreamMessageId, Map<String, String>> claimed = deliveries.isEmpty() ? Map.of()
+                        : stream.claim(GROUP_NAME, consumerName, visibilityTimeoutMillis, TimeUnit.MILLISECONDS,
+                                deliveries.keySet().toArray(new StreamMessageId[0]));
+                available -= claimed.size();
+                claimed.forEach((id, fields) -> {
+                    reclaimedCount.increment();
+                    log.info("认领超时渲染单元：teamId={}, id={}, taskId={}, index={}",
+                            teamId, id, fields.get("taskId"), fields.get("index"));
+                    dispatch(teamId, id, fields, deliveries.getOrDefault(id, 1L) + 1);
+                });
+            }
+            permits.release(available);
+            available = 0;
+        } catch (Exception e) {
+            permits.release(available);
+            log.warn("认领渲染队列待处理消息失败：consumer={}", consumerName, e);
+        }
+    }
+
+    /**
+     * 交给处理器执行，完成后确认并删除消息（调用前已为该消息获取许可）
+     */
+    private void dispatch(Integer teamId, StreamMessageId id, Map<String, String> fields, long deliveries) {
+        Unit unit;
+        try {
+            unit = toUnit(fields, deliveries);
+        } catch (RuntimeException | JsonProcessingException e) {
+            // 无法解析的消息重投也无法处理，直接丢弃
+            log.error("渲染单元消息格式错误，已丢弃：id={}, fields={}", id, fields, e);
+            permits.release();
+            acknowledge(teamId, id);
+            return;
+        }
+        InFlight message = new InFlight(teamId, id);
+        inFlight.add(message);
+        CompletableFuture<Void> future;
+        try {
+            future = handler.apply(unit);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((ignored, e) -> {
+            inFlight.remove(message);
+            permits.release();
+            if (e != null) {
+                log.warn("渲染单元处理失败，等待重投：id={}, taskId={}, index={}", id, unit.taskId(), unit.item().index(), e);
+                return;
+            }
+            acknowledge(teamId, id);
+            metrics(teamId).recordCompletion();
+        });
+    }
+
+    /**
+     * 确认并删除消息
+     */
+    private void acknowledge(Integer teamId, StreamMessageId id) {
+        try {
+            RStream<String, String> stream = stream(teamId);
+            stream.ack(GROUP_NAME, id);
+            stream.remove(id);
+            ackedCount.increment();
+        } catch (Exception e) {
+            log.warn("确认渲染单元失败：id={}", id, e);
+        }
+    }
+
+    private Unit toUnit(Map<String, String> fields, long deliveries) throws JsonProcessingException {
+        String binding = fields.get("binding");
+        RenderJob.Item item = new RenderJob.Item(Integer.parseInt(fields.get("index")), fields.get("fileName"),
+                fields.get("sourceKey"), fields.get("sourceHash"), fields.get("entryName"),
+                binding == null ? null : objectMapper.readValue(binding, RowBinding.class));
+        return new Unit(Integer.valueOf(fields.get("taskId")), item, deliveries);
+    }
+
+    private RStream<String, String> stream(Integer teamId) {
+        return redissonClient.getStream(STREAM_KEY_PREFIX + teamId, StringCodec.INSTANCE);
+    }
+
+    private int weight(Integer teamId) {
+        return Math.max(1, teamWeights.getOrDefault(teamId, defaultTeamWeight));
+    }
+
+    private TeamMetrics metrics(Integer teamId) {
+        return teamMetrics.computeIfAbsent(teamId, k -> new TeamMetrics());
+    }
+
+    private static void createGroup(RStream<String, String> stream) {
+        try {
+            stream.createGroup(StreamCreateGroupArgs.name(GROUP_NAME).id(StreamMessageId.ALL).makeStream());
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化渲染单元失败", e);
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "render-node";
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取队列统计信息（用于监控）
+     */
+    public QueueStats getStats() {
+        Map<Integer, Double> active = new HashMap<>();
+        for (ScoredEntry<String> entry : virtualTimes.entryRange(0, -1)) {
+            active.put(Integer.valueOf(entry.getValue()), entry.getScore());
+        }
+        Set<Integer> teamIds = new TreeSet<>(active.keySet());
+        teamIds.addAll(teamMetrics.keySet());
+        List<TeamQueueStats> teams = new ArrayList<>(teamIds.size());
+        for (Integer teamId : teamIds) {
+            TeamMetrics metrics = teamMetrics.get(teamId);
+            teams.add(new TeamQueueStats(teamId, weight(teamId), active.get(teamId),
+                    active.containsKey(teamId) ? depth(teamId) : 0L,
+                    metrics == null ? 0L : metrics.delivered.sum(),
+                    metrics == null ? 0.0 : metrics.averageLatencyMillis(),
+                    metrics == null ? 0L : metrics.maxLatencyMillis.get(),
+                    metrics == null ? 0.0 : metrics.serviceRate()));
+        }
+        return new QueueStats(consumerName, prefetch, inFlight.size(),
+                deliveredCount.sum(), reclaimedCount.sum(), ackedCount.sum(), teams);
+    }
+
+    /**
+     * 渲染单元消息
+     *
+     * @param taskId     任务ID
+     * @param item       渲染单元
+     * @param deliveries 投递次数（首次投递为1）
+     */
+    public record Unit(Integer taskId, RenderJob.Item item, long deliveries) {}
+
+    /**
+     * 渲染队列统计信息
+     */
+    public record QueueStats(
+            String consumer,
+            int prefetch,
+            int inFlight,
+            long deliveredCount,
+            long reclaimedCount,
+            long ackedCount,
+            List<TeamQueueStats> teams
+    ) {}
+
+    /**
+     * 团队队列统计信息（权重、虚拟时间与队列深度为全局值，其余为本节点累计值）
+     *
+     * @param teamId             团队ID
+     * @param weight             调度权重
+     * @param virtualTime        虚拟时间（没有积压时为 null）
+     * @param depth              队列深度
+     * @param delivered          本节点领取的单元数（不含认领重投）
+     * @param avgLatencyMillis   入队到被本节点领取的平均等待时间（毫秒）
+     * @param maxLatencyMillis   入队到被本节点领取的最长等待时间（毫秒）
+     * @param serviceRate        最近一分钟本节点完成的单元数（个/秒）
+     */
+    public record TeamQueueStats(
+            Integer teamId,
+            int weight,
+            Double virtualTime,
+            long depth,
+            long delivered,
+            double avgLatencyMillis,
+            long maxLatencyMillis,
+            double serviceRate
+    ) {}
+
+    /**
+     * 处理中的消息
+     */
+    private record InFlight(Integer teamId, StreamMessageId id) {}
+
+    /**
+     * 团队调度指标：领取延迟累计值与最近一分钟按秒分桶的完成数量
+     */
+    private static class TeamMetrics {
+
+        private static final int WINDOW_SECONDS = 60;
+
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private final AtomicLong maxLatencyMillis = new AtomicLong();
+        private final long[] buckets = new long[WINDOW_SECONDS];
+        private final long[] bucketSeconds = new long[WINDOW_SECONDS];
+
+        void recordDelivery(long latencyMillis) {
+            long latency = Math.max(0, latencyMillis);
+            delivered.increment();
+            latencySum.add(latency);
+            maxLatencyMillis.accumulateAndGet(latency, Math::max);
+        }
+
+        synchronized void recordCompletion() {
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % WINDOW_SECONDS);
+            if (bucketSeconds[slot] != second) {
+                bucketSeconds[slot] = second;
+                buckets[slot] = 0;
+            }
+            buckets[slot]++;
+        }
+
+        synchronized double serviceRate() {
+            long now = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                if (now - bucketSeconds[i] < WINDOW_SECONDS) {
+                    total += buckets[i];
+                }
+            }
+            return (double) total / WINDOW_SECONDS;
+        }
+
+        double averageLatencyMillis() {
+            long count = delivered.sum();
+            return count == 0 ? 0.0 : (double) latencySum.sum() / count;
+        }
+    }
+
+    /**
+     * 停止消费：处理中的消息不再确认，由其他节点在可见性超时后认领
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        reclaimer.shutdownNow();
+        poller.shutdownNow();
+        log.info("分布式渲染队列已停止：consumer={}", consumerName);
+    }
+}
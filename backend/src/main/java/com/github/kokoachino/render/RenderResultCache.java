@@ -0,0 +1,243 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.service.MinioService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RMap;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * 渲染结果缓存（内容寻址）
+ * 以 (源图片 SHA-256, 模板ID, 模板版本号, 输出格式, 编码预设, Excel 行绑定数据, 图片水印素材 ETag) 为键，值为已渲染结果在 MinIO 中的对象。
+ * 模板版本号只在模板配置修改时递增，图片素材在原地址更新时由 ETag 区分，不会命中旧素材渲染的结果。
+ * 命中时由 MinIO 服务端复制到本次任务的结果分片，不再下载源图片与渲染；未命中时渲染结果分片在服务端复制一份进入缓存。
+ * 缓存条目记录在 Redis 中，按最近访问时间淘汰，缓存对象总字节数超过上限时从最久未访问的条目开始删除
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-25
+ */
+@Slf4j
+@Component
+public class RenderResultCache {
+
+    private static final String ENTRY_KEY = "render：result-cache：entries";
+    private static final String ACCESS_KEY = "render：result-cache：access";
+    private static final String BYTES_KEY = "render：result-cache：bytes";
+    private static final String OBJECT_PREFIX = "render-cache/";
+
+    private final MinioService minioService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final String encodePreset;
+
+    /**
+     * 缓存条目：键摘要 → "字节数：CRC32"
+     */
+    private final RMap<String, String> entries;
+
+    /**
+     * 最近访问时间（分数为毫秒时间戳，用于 LRU 淘汰）
+     */
+    private final RScoredSortedSet<String> accessTimes;
+
+    /**
+     * 缓存对象总字节数
+     */
+    private final RAtomicLong totalBytes;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder storeCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public RenderResultCache(RedissonClient redissonClient, MinioService minioService, ObjectMapper objectMapper,
+                             SystemProperties systemProperties) {
+        this.minioService = minioService;
+        this.objectMapper = objectMapper;
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        this.enabled = Boolean.TRUE.equals(config.getResultCacheEnabled());
+        this.maxBytes = config.getResultCacheMaxMb() * 1024L * 1024L;
+        this.encodePreset = config.getEncodePreset();
+        this.entries = redissonClient.getMap(ENTRY_KEY, StringCodec.INSTANCE);
+        this.accessTimes = redissonClient.getScoredSortedSet(ACCESS_KEY, StringCodec.INSTANCE);
+        this.totalBytes = redissonClient.getAtomicLong(BYTES_KEY);
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param sourceHash 源图片 SHA-256
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param format     输出格式
+     * @param binding    Excel 行绑定数据（可为 null）
+     * @param assetETags 按水印顺序排列的图片水印素材 ETag（已代入行绑定的图片地址）
+     * @return 缓存键摘要，缓存未启用或缺少源图片摘要、模板版本号时返回 null
+     */
+    public String key(String sourceHash, Integer templateId, Integer version, String format, RowBinding binding,
+                      List<String> assetETags) {
+        if (!enabled || sourceHash == null || version == null) {
+            return null;
+        }
+        try {
+            String composite = sourceHash + "|" + templateId + "|" + version + "|" + format + "|" + encodePreset
+                    + "|" + (binding == null ? "" : objectMapper.writeValueAsString(binding))
+                    + "|" + String.join(",", assetETags);
+            return sha256(composite.getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            log.warn("计算渲染结果缓存键失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 查找缓存并复制到目标对象
+     *
+     * @param key       缓存键摘要
+     * @param targetKey 目标对象Key
+     * @return 命中时返回缓存条目，未命中或缓存对象已失效时返回 null
+     */
+    public Entry copyTo(String key, String targetKey) {
+        String value = entries.get(key);
+        if (value == null) {
+            missCount.increment();
+            return null;
+        }
+        try {
+            minioService.copyFile(OBJECT_PREFIX + key, targetKey);
+        } catch (RuntimeException e) {
+            // 缓存对象已被删除：移除条目并按未命中处理
+            log.warn("渲染结果缓存对象失效：key={}", key);
+            remove(key);
+            missCount.increment();
+            return null;
+        }
+        accessTimes.add(System.currentTimeMillis(), key);
+        hitCount.increment();
+        int separator = value.indexOf('：');
+        return new Entry(Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+    }
+
+    /**
+     * 将渲染结果分片复制一份放入缓存，超过容量上限时淘汰最久未访问的条目
+     *
+     * @param key     缓存键摘要
+     * @param partKey 渲染结果分片对象Key
+     * @param size    渲染结果字节数
+     * @param crc     渲染结果 CRC32
+     */
+    public void store(String key, String partKey, long size, long crc) {
+        if (size > maxBytes || entries.containsKey(key)) {
+            return;
+        }
+        try {
+            minioService.copyFile(partKey, OBJECT_PREFIX + key);
+            if (!entries.fastPutIfAbsent(key, size + "：" + crc)) {
+                return;
+            }
+            accessTimes.add(System.currentTimeMillis(), key);
+            storeCount.increment();
+            if (totalBytes.addAndGet(size) > maxBytes) {
+                evict();
+            }
+        } catch (RuntimeException e) {
+            log.warn("写入渲染结果缓存失败：key={}", key, e);
+        }
+    }
+
+    /**
+     * 从最久未访问的条目开始淘汰，直到总字节数不超过上限
+     */
+    private void evict() {
+        while (totalBytes.get() > maxBytes) {
+            String victim = accessTimes.pollFirst();
+            if (victim == null) {
+                return;
+            }
+            if (remove(victim)) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 移除缓存条目并删除缓存对象
+     *
+     * @return 条目是否存在
+     */
+    private boolean remove(String key) {
+        String value = entries.remove(key);
+        accessTimes.remove(key);
+        if (value == null) {
+            return false;
+        }
+        totalBytes.addAndGet(-Long.parseLong(value.substring(0, value.indexOf('：'))));
+        try {
+            minioService.deleteFile(OBJECT_PREFIX + key);
+        } catch (RuntimeException e) {
+            log.warn("删除渲染结果缓存对象失败：key={}", key);
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获取缓存统计信息（条目数与字节数为全局值，命中、写入与淘汰次数为本节点累计值）
+     */
+    public ResultCacheStats getStats() {
+        return new ResultCacheStats(enabled, entries.size(), totalBytes.get(), maxBytes,
+                hitCount.sum(), missCount.sum(), storeCount.sum(), evictionCount.sum());
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param size 渲染结果字节数
+     * @param crc  渲染结果 CRC32
+     */
+    public record Entry(long size, long crc) {}
+
+    /**
+     * 渲染结果缓存统计信息
+     */
+    public record ResultCacheStats(
+            boolean enabled,
+            int size,
+            long bytes,
+            long maxBytes,
+            long hitCount,
+            long missCount,
+            long storeCount,
+            long evictionCount
+    ) {
+
+        /**
+         * 命中率
+         */
+        public double hitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.config.SystemProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+
+/**
+ * 水印渲染线程池
+ * 渲染属于CPU密集型任务，线程数默认等于CPU核数，与通用异步线程池隔离
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+@Slf4j
+@Component
+public class RenderWorkerPool {
+
+    /**
+     * 渲染线程池
+     * 固定线程数，有界队列；队列满时由提交线程执行（CallerRunsPolicy），形成自然背压
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 渲染线程累计忙碌时间（用于计算渲染阶段吞吐）
+     */
+    private final LongAdder busyNanos = new LongAdder();
+
+    public RenderWorkerPool(SystemProperties systemProperties) {
+        SystemProperties.RenderConfig config = systemProperties.getRender();
+        int threads = config.getWorkerThreads() == null || config.getWorkerThreads() <= 0
+                ? Runtime.getRuntime().availableProcessors()
+                : config.getWorkerThreads();
+        int queueCapacity = config.getQueueCapacity() == null ? 2000 : config.getQueueCapacity();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    @Override
+                    public Thread newThread(@NotNull Runnable r) {
+                        return new Thread(r, "render-worker-" + count.incrementAndGet());
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        log.info("水印渲染线程池已创建：threads={}, queueCapacity={}", threads, queueCapacity);
+    }
+
+    /**
+     * 提交渲染任务
+     *
+     * @param task 任务
+     * @param <T>  返回值类型
+     * @return CompletableFuture
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return task.get();
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+            }
+        }, executor);
+    }
+
+    /**
+     * 获取线程池状态信息（用于监控）
+     */
+    public RenderPoolStats getStats() {
+        return new RenderPoolStats(
+                executor.getActiveCount(),
+                executor.getPoolSize(),
+                executor.getQueue().size(),
+                executor.getCompletedTaskCount(),
+                busyNanos.sum() / 1_000_000
+        );
+    }
+
+    /**
+     * 渲染线程池统计信息
+     */
+    public record RenderPoolStats(
+            int activeCount,
+            int poolSize,
+            int queueSize,
+            long completedTaskCount,
+            long busyMillis
+    ) {}
+
+    /**
+     * 优雅关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("正在关闭水印渲染线程池...");
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("水印渲染线程池已关闭");
+    }
+}
@@ -0,0 +1,276 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.service.MinioService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * 结果压缩包流式上传
+ * ZipOutputStream 通过管道直接接入 MinIO 分片上传，各渲染结果依次写入一个条目，不生成临时压缩包，
+ * 内存占用固定为管道缓冲区加一个上传分片。JPEG / PNG 已是压缩格式，条目一律使用 STORED 存储，避免无效的 deflate 开销
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-22
+ */
+@Slf4j
+@Component
+public class ResultZipStreamer {
+
+    /**
+     * 管道缓冲区大小
+     */
+    private static final int PIPE_BUFFER_SIZE = 256 * 1024;
+
+    private final MinioService minioService;
+    private final SystemProperties systemProperties;
+
+    /**
+     * 上传线程池
+     * 每个上传会话在整个任务期间占用一个线程读取管道，不能与通用异步线程池共享（排队会导致写入端永久阻塞）
+     */
+    private final ExecutorService uploadExecutor;
+
+    public ResultZipStreamer(MinioService minioService, SystemProperties systemProperties) {
+        this.minioService = minioService;
+        this.systemProperties = systemProperties;
+        this.uploadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(@NotNull Runnable r) {
+                Thread thread = new Thread(r, "render-zip-upload-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 打开上传会话，立即开始分片上传
+     *
+     * @param objectKey 压缩包对象Key
+     * @return 上传会话
+     * @throws IOException 创建管道失败
+     */
+    public Session open(String objectKey) throws IOException {
+        long partSize = systemProperties.getRender().getZipPartSizeMb() * 1024L * 1024L;
+        PipedInputStream pipeIn = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        AbortableInputStream uploadStream = new AbortableInputStream(pipeIn);
+        CompletableFuture<String> upload = CompletableFuture.supplyAsync(
+                () -> minioService.uploadStream(uploadStream, "application/zip", objectKey, partSize), uploadExecutor);
+        // 上传失败后关闭读取端，使阻塞在管道写入上的线程立即失败，而不是等待已不存在的读取方
+        upload.whenComplete((url, e) -> {
+            if (e != null) {
+                closeQuietly(pipeIn);
+            }
+        });
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(pipeOut, 64 * 1024));
+        return new Session(objectKey, uploadStream, pipeOut, zos, upload);
+    }
+
+    /**
+     * 上传会话（条目写入线程安全）
+     */
+    public static final class Session {
+
+        private final String objectKey;
+        private final AbortableInputStream uploadStream;
+        private final PipedOutputStream pipeOut;
+        private final ZipOutputStream zos;
+        private final CompletableFuture<String> upload;
+        private final Set<String> entryNames = new HashSet<>();
+        private int entryCount;
+        private boolean failed;
+        private boolean closed;
+
+        private Session(String objectKey, AbortableInputStream uploadStream, PipedOutputStream pipeOut,
+                        ZipOutputStream zos, CompletableFuture<String> upload) {
+            this.objectKey = objectKey;
+            this.uploadStream = uploadStream;
+            this.pipeOut = pipeOut;
+            this.zos = zos;
+            this.upload = upload;
+        }
+
+        /**
+         * 写入一个条目（STORED），重名时以序号前缀区分
+         *
+         * @param entryName 条目名
+         * @param index     序号
+         * @param file      条目内容文件
+         * @return 是否写入成功（会话已失败时直接返回 false）
+         */
+        public synchronized boolean addEntry(String entryName, int index, Path file) {
+            if (failed || closed) {
+                return false;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                return addEntry(entryName, index, in, Files.size(file), crc32(file));
+            } catch (IOException e) {
+                log.error("读取结果压缩包条目文件失败：objectKey={}, entry={}", objectKey, entryName, e);
+                abort();
+                return false;
+            }
+        }
+
+        /**
+         * 写入一个条目（STORED），大小与 CRC 已预先计算，内容直接从输入流复制，重名时以序号前缀区分
+         *
+         * @param entryName 条目名
+         * @param index     序号
+         * @param in        条目内容
+         * @param size      内容字节数
+         * @param crc       内容 CRC32
+         * @return 是否写入成功（会话已失败时直接返回 false）
+         */
+        public synchronized boolean addEntry(String entryName, int index, InputStream in, long size, long crc) {
+            if (failed || closed) {
+                return false;
+            }
+            try {
+                String name = entryName;
+                if (!entryNames.add(name)) {
+                    name = index + "_" + name;
+                    entryNames.add(name);
+                }
+                ZipEntry entry = new ZipEntry(name);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(size);
+                entry.setCrc(crc);
+                zos.putNextEntry(entry);
+                in.transferTo(zos);
+                zos.closeEntry();
+                entryCount++;
+                return true;
+            } catch (IOException e) {
+                log.error("写入结果压缩包条目失败：objectKey={}, entry={}", objectKey, entryName, e);
+                abort();
+                return false;
+            }
+        }
+
+        /**
+         * 结束写入并等待上传完成
+         *
+         * @return 压缩包访问URL；会话失败或没有任何条目时中止上传并返回 null
+         */
+        public synchronized String finish() {
+            if (failed || entryCount == 0) {
+                abort();
+                return null;
+            }
+            try {
+                zos.close();
+                closed = true;
+                return upload.join();
+            } catch (IOException | CompletionException e) {
+                log.error("结果压缩包上传失败：objectKey={}", objectKey, e);
+                abort();
+                return null;
+            }
+        }
+
+        /**
+         * 已写入的条目数
+         */
+        public synchronized int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * 中止上传：标记上传流为已中止并关闭写入端，上传线程读到的是异常而非文件结束，
+         * 从而放弃分片上传，不会产生截断的压缩包
+         */
+        public synchronized void abort() {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            closed = true;
+            uploadStream.abort();
+            closeQuietly(pipeOut);
+            upload.exceptionally(e -> null).join();
+        }
+
+        /**
+         * 计算文件 CRC32
+         */
+        public static long crc32(Path file) throws IOException {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * 可中止的输入流：中止后任何读取都抛出异常（包括管道写入端关闭导致的文件结束）
+     */
+    private static final class AbortableInputStream extends FilterInputStream {
+
+        private volatile boolean aborted;
+
+        private AbortableInputStream(InputStream in) {
+            super(in);
+        }
+
+        private void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            checkAborted();
+            return b;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            checkAborted();
+            return n;
+        }
+
+        private void checkAborted() throws IOException {
+            if (aborted) {
+                throw new IOException("结果压缩包上传已中止");
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // 关闭失败不影响中止流程
+        }
+    }
+
+    /**
+     * 关闭上传线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.kokoachino.render;
+
+import java.util.List;
+
+
+/**
+ * Excel 行绑定数据
+ * 文字槽位 N 对应模板中第 N 个文字水印（按水印列表顺序），图片槽位 N 对应第 N 个图片水印；
+ * 单元格为空时该槽位保留模板原有内容
+ *
+ * @param texts  文字水印内容（按表头顺序）
+ * @param images 图片水印URL（按表头顺序）
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+public record RowBinding(List<String> texts, List<String> images) {
+
+    /**
+     * 获取文字槽位的绑定内容
+     *
+     * @param slot 槽位序号
+     * @return 绑定内容，未绑定时返回 null
+     */
+    public String text(int slot) {
+        return valueAt(texts, slot);
+    }
+
+    /**
+     * 获取图片槽位的绑定URL
+     *
+     * @param slot 槽位序号
+     * @return 绑定URL，未绑定时返回 null
+     */
+    public String image(int slot) {
+        return valueAt(images, slot);
+    }
+
+    private static String valueAt(List<String> values, int slot) {
+        if (values == null || slot >= values.size()) {
+            return null;
+        }
+        String value = values.get(slot);
+        return value == null || value.isBlank() ? null : value;
+    }
+}
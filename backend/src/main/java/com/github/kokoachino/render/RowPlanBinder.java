@@ -0,0 +1,145 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.model.dto.ImageWatermarkDTO;
+import com.github.kokoachino.model.dto.TextWatermarkDTO;
+import com.github.kokoachino.model.dto.WatermarkBaseDTO;
+import com.github.kokoachino.model.dto.WatermarkConfigDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Excel 行数据绑定器
+ * 将行数据代入模板槽位，生成该行的叠加层列表。被绑定的水印把模板切分为若干连续分段：
+ * 未绑定的分段在各行之间共享，按 (模板ID, 版本号, 输出宽高, 分段区间) 编译并光栅化一次后缓存；
+ * 只有被绑定的水印按行重新排版与光栅化（字体、文字轮廓与图片素材仍命中各自缓存）
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+@Component
+@RequiredArgsConstructor
+public class RowPlanBinder {
+
+    private final RenderPlanCompiler compiler;
+    private final RenderPlanCache renderPlanCache;
+    private final RenderOverlayCache renderOverlayCache;
+    private final WatermarkRenderer renderer;
+
+    /**
+     * 生成行数据绑定后的叠加层
+     *
+     * @param templateId 模板ID
+     * @param version    模板版本号
+     * @param config     模板配置（只读）
+     * @param binding    行绑定数据（为 null 时直接使用模板）
+     * @param width      输出宽度
+     * @param height     输出高度
+     * @return 叠加层列表（从底层到顶层，不含无可见图层的分段）
+     */
+    public List<RenderOverlay> bind(Integer templateId, Integer version, WatermarkConfigDTO config, RowBinding binding,
+                                    int width, int height) {
+        List<WatermarkBaseDTO> watermarks = config.getWatermarks();
+        WatermarkBaseDTO[] bound = binding == null || watermarks == null ? null : substitute(watermarks, binding);
+        List<RenderOverlay> overlays = new ArrayList<>();
+        if (bound == null) {
+            RenderPlan plan = renderPlanCache.getPlan(templateId, version, config, width, height);
+            addIfVisible(overlays, renderOverlayCache.getOverlay(plan));
+            return overlays;
+        }
+        // 水印列表首项位于最上层，从后往前依次产出：未绑定分段 [i + 1, end) 之后是被绑定的第 i 项
+        int end = watermarks.size();
+        for (int i = watermarks.size() - 1; i >= -1; i--) {
+            if (i >= 0 && bound[i] == null) {
+                continue;
+            }
+            if (i + 1 < end) {
+                RenderPlan segment = renderPlanCache.getSegmentPlan(templateId, version, config, i + 1, end, width, height);
+                addIfVisible(overlays, renderOverlayCache.getOverlay(segment, (i + 1) + "-" + end));
+            }
+            if (i >= 0) {
+                RenderPlan plan = compiler.compile(templateId, version, config.getBaseConfig(), List.of(bound[i]),
+                        width, height);
+                addIfVisible(overlays, renderer.rasterize(plan));
+            }
+            end = i;
+        }
+        return overlays;
+    }
+
+    /**
+     * 按槽位代入行数据
+     *
+     * @return 与水印列表等长的数组，被绑定的位置为代入后的副本，其余为 null；没有任何绑定时返回 null
+     */
+    private WatermarkBaseDTO[] substitute(List<WatermarkBaseDTO> watermarks, RowBinding binding) {
+        WatermarkBaseDTO[] bound = new WatermarkBaseDTO[watermarks.size()];
+        boolean any = false;
+        int textSlot = 0;
+        int imageSlot = 0;
+        for (int i = 0; i < watermarks.size(); i++) {
+            WatermarkBaseDTO watermark = watermarks.get(i);
+            if (watermark instanceof TextWatermarkDTO text) {
+                String content = binding.text(textSlot++);
+                // 与模板内容相同时仍走共享分段
+                if (content != null && !content.equals(text.getContent())) {
+                    bound[i] = copyText(text, content);
+                    any = true;
+                }
+            } else if (watermark instanceof ImageWatermarkDTO image) {
+                String imageUrl = binding.image(imageSlot++);
+                if (imageUrl != null && !imageUrl.equals(image.getImageUrl())) {
+                    bound[i] = copyImage(image, imageUrl);
+                    any = true;
+                }
+            }
+        }
+        return any ? bound : null;
+    }
+
+    /**
+     * 复制文字水印并替换内容（嵌套配置对象只读共享）
+     */
+    private static TextWatermarkDTO copyText(TextWatermarkDTO source, String content) {
+        TextWatermarkDTO copy = new TextWatermarkDTO();
+        copyBase(source, copy);
+        copy.setContent(content);
+        copy.setFont(source.getFont());
+        copy.setFontSize(source.getFontSize());
+        copy.setColor(source.getColor());
+        copy.setBold(source.getBold());
+        copy.setSkewAngle(source.getSkewAngle());
+        copy.setStroke(source.getStroke());
+        copy.setShadow(source.getShadow());
+        copy.setGradient(source.getGradient());
+        return copy;
+    }
+
+    /**
+     * 复制图片水印并替换图片URL
+     */
+    private static ImageWatermarkDTO copyImage(ImageWatermarkDTO source, String imageUrl) {
+        ImageWatermarkDTO copy = new ImageWatermarkDTO();
+        copyBase(source, copy);
+        copy.setImageUrl(imageUrl);
+        copy.setScale(source.getScale());
+        copy.setWidth(source.getWidth());
+        copy.setHeight(source.getHeight());
+        return copy;
+    }
+
+    private static void copyBase(WatermarkBaseDTO source, WatermarkBaseDTO target) {
+        target.setType(source.getType());
+        target.setPosition(source.getPosition());
+        target.setRotation(source.getRotation());
+        target.setOpacity(source.getOpacity());
+    }
+
+    private static void addIfVisible(List<RenderOverlay> overlays, RenderOverlay overlay) {
+        if (overlay != null) {
+            overlays.add(overlay);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.kokoachino.render;
+
+
+/**
+ * 标量合成内核
+ * 向量内核的参照实现，同时处理向量内核的尾部像素与 INT_ARGB 目标（反预乘需要整数除法，向量化后反而更慢）
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+final class ScalarBlendKernel implements BlendKernel {
+
+    @Override
+    public void blend(int[] src, int srcOffset, int srcStride, int[] dst, int dstOffset, int dstStride,
+                      int width, int height, boolean dstHasAlpha) {
+        for (int row = 0; row < height; row++) {
+            int si = srcOffset + row * srcStride;
+            int di = dstOffset + row * dstStride;
+            for (int col = 0; col < width; col++, si++, di++) {
+                int s = src[si];
+                int sa = s >>> 24;
+                if (sa == 0) {
+                    continue;
+                }
+                dst[di] = dstHasAlpha ? blendArgb(s, dst[di]) : blendRgb(s, dst[di]);
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+     * 预乘源合成到不透明目标：dst = src + dst * (255 - srcA) / 255
+     */
+    static int blendRgb(int s, int d) {
+        int inv = 255 - (s >>> 24);
+        int r = ((s >> 16) & 0xff) + div255(((d >> 16) & 0xff) * inv);
+        int g = ((s >> 8) & 0xff) + div255(((d >> 8) & 0xff) * inv);
+        int b = (s & 0xff) + div255((d & 0xff) * inv);
+        return 0xff000000 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * 预乘源合成到非预乘目标：目标先预乘，合成后再按输出透明度还原
+     */
+    static int blendArgb(int s, int d) {
+        int sa = s >>> 24;
+        int da = d >>> 24;
+        int inv = 255 - sa;
+        int oa = sa + div255(da * inv);
+        if (oa == 0) {
+            return 0;
+        }
+        int r = unpremultiply(((s >> 16) & 0xff) + div255(div255(((d >> 16) & 0xff) * da) * inv), oa);
+        int g = unpremultiply(((s >> 8) & 0xff) + div255(div255(((d >> 8) & 0xff) * da) * inv), oa);
+        int b = unpremultiply((s & 0xff) + div255(div255((d & 0xff) * da) * inv), oa);
+        return oa << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * 精确的 x / 255 四舍五入（x ∈ [0, 65025]）
+     */
+    static int div255(int x) {
+        x += 128;
+        return (x + (x >> 8)) >> 8;
+    }
+
+    private static int unpremultiply(int c, int a) {
+        return Math.min(255, (c * 255 + (a >> 1)) / a);
+    }
+}
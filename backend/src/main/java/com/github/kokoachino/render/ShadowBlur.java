@@ -0,0 +1,148 @@
+package com.github.kokoachino.render;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
+
+
+/**
+ * 文字阴影模糊
+ * 只对覆盖率（alpha）蒙版做三次盒式模糊来近似高斯模糊（σ = 模糊半径 / 2，与 CSS / Canvas 阴影一致），
+ * 盒式模糊使用滑动窗口，每个像素的开销与半径无关。行、列两个方向可分离执行，
+ * 大蒙版时按行 / 列并行，每个线程复用自己的行缓冲区
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+final class ShadowBlur {
+
+    /**
+     * 蒙版像素数超过该值时并行执行行、列模糊
+     */
+    private static final int PARALLEL_THRESHOLD = 512 * 512;
+
+    /**
+     * 每个线程复用的行 / 列缓冲区
+     */
+    private static final ThreadLocal<int[]> LINE_BUFFER = ThreadLocal.withInitial(() -> new int[1024]);
+
+    private ShadowBlur() {
+    }
+
+    /**
+     * 生成模糊阴影图
+     *
+     * @param shape   阴影形状（图层局部坐标）
+     * @param color   阴影颜色
+     * @param blur    模糊半径（像素，必须大于0）
+     * @param padding 四周留白（需容纳模糊扩散）
+     * @return 预乘 ARGB 阴影图，左上角对应 shape.getBounds() 左上角向外偏移 padding
+     */
+    static BufferedImage render(Shape shape, Color color, int blur, int padding) {
+        Rectangle bounds = shape.getBounds();
+        int width = bounds.width + padding * 2;
+        int height = bounds.height + padding * 2;
+        BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = mask.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.translate(padding - bounds.x, padding - bounds.y);
+            g.setColor(Color.WHITE);
+            g.fill(shape);
+        } finally {
+            g.dispose();
+        }
+        byte[] alpha = ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+        int[] radii = boxRadii(blur / 2.0);
+        boolean parallel = width * height > PARALLEL_THRESHOLD;
+        range(height, parallel).forEach(row -> blurLine(alpha, row * width, 1, width, radii));
+        range(width, parallel).forEach(col -> blurLine(alpha, col, width, height, radii));
+        return colorize(alpha, width, height, color);
+    }
+
+    /**
+     * 计算三次盒式模糊的半径，使其叠加结果逼近给定 σ 的高斯模糊
+     */
+    static int[] boxRadii(double sigma) {
+        int passes = 3;
+        double idealWidth = Math.sqrt(12 * sigma * sigma / passes + 1);
+        int lower = (int) Math.floor(idealWidth);
+        if (lower % 2 == 0) {
+            lower--;
+        }
+        int upper = lower + 2;
+        double idealCount = (12 * sigma * sigma - passes * lower * lower - 4.0 * passes * lower - 3 * passes) / (-4.0 * lower - 4);
+        int lowerCount = (int) Math.round(idealCount);
+        int[] radii = new int[passes];
+        for (int i = 0; i < passes; i++) {
+            radii[i] = ((i < lowerCount ? lower : upper) - 1) / 2;
+        }
+        return radii;
+    }
+
+    /**
+     * 对一行（stride = 1）或一列（stride = 宽度）依次执行三次盒式模糊，画布外视为透明
+     */
+    private static void blurLine(byte[] data, int offset, int stride, int length, int[] radii) {
+        int[] line = LINE_BUFFER.get();
+        if (line.length < length) {
+            line = new int[length];
+            LINE_BUFFER.set(line);
+        }
+        for (int radius : radii) {
+            if (radius <= 0) {
+                continue;
+            }
+            for (int i = 0, p = offset; i < length; i++, p += stride) {
+                line[i] = data[p] & 0xff;
+            }
+            int window = radius * 2 + 1;
+            int sum = 0;
+            for (int i = 0; i <= radius && i < length; i++) {
+                sum += line[i];
+            }
+            for (int i = 0, p = offset; i < length; i++, p += stride) {
+                data[p] = (byte) ((sum + window / 2) / window);
+                int add = i + radius + 1;
+                if (add < length) {
+                    sum += line[add];
+                }
+                int remove = i - radius;
+                if (remove >= 0) {
+                    sum -= line[remove];
+                }
+            }
+        }
+    }
+
+    /**
+     * 将覆盖率蒙版着色为预乘 ARGB 图片
+     */
+    private static BufferedImage colorize(byte[] alpha, int width, int height, Color color) {
+        BufferedImage shadow = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        int[] pixels = ((DataBufferInt) shadow.getRaster().getDataBuffer()).getData();
+        int colorAlpha = color.getAlpha();
+        int red = color.getRed();
+        int green = color.getGreen();
+        int blue = color.getBlue();
+        for (int i = 0; i < pixels.length; i++) {
+            int coverage = alpha[i] & 0xff;
+            if (coverage == 0) {
+                continue;
+            }
+            int a = ScalarBlendKernel.div255(coverage * colorAlpha);
+            pixels[i] = a << 24
+                    | ScalarBlendKernel.div255(red * a) << 16
+                    | ScalarBlendKernel.div255(green * a) << 8
+                    | ScalarBlendKernel.div255(blue * a);
+        }
+        return shadow;
+    }
+
+    private static IntStream range(int count, boolean parallel) {
+        IntStream stream = IntStream.range(0, count);
+        return parallel ? stream.parallel() : stream;
+    }
+}
@@ -0,0 +1,545 @@
+package com.github.kokoachino.render;
+
+import org.w3c.dom.Node;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.metadata.IIOMetadata;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+
+/**
+ * 分块渲染流水线
+ * 解码线程按行顺序把源图片解码到可复用的条带中，每满一个条带就转换为 INT 像素、合成与之相交的叠加层并交给编码线程；
+ * 编码线程通过 image() 返回的图片按行顺序读取，读到当前条带之外的行时归还当前条带并取下一条带。
+ * 同时存在的像素数据只有解码条带与两个 INT 条带，单张图片的峰值内存由条带高度决定。
+ * 基线 / 渐进式 JPEG（只转发最终一遍）与非隔行 PNG 整图只顺序解码一次；
+ * 其他格式（隔行 PNG、GIF、BMP 等）的解码器不按行顺序输出，逐条带按源区域解码
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-21
+ */
+public final class StripPipeline implements AutoCloseable {
+
+    /**
+     * 解码结束标记
+     */
+    private static final Strip END = new Strip(null, -1, 0);
+
+    private final ImageReader reader;
+    private final List<RenderOverlay> overlays;
+    private final boolean keepAlpha;
+    private final int width;
+    private final int height;
+    private final int stripHeight;
+    private final BufferedImage image;
+
+    /**
+     * 已合成、等待编码线程读取的条带
+     */
+    private final BlockingQueue<Strip> ready = new ArrayBlockingQueue<>(1);
+
+    /**
+     * 编码线程读取完毕、可供解码线程复用的 INT 条带
+     */
+    private final BlockingQueue<BufferedImage> free = new ArrayBlockingQueue<>(2);
+
+    private final Thread decoder;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    /**
+     * 编码线程当前读取的条带（仅编码线程访问）
+     */
+    private Strip current;
+
+    /**
+     * 解码线程已创建的 INT 条带数量（仅解码线程访问）
+     */
+    private int allocated;
+
+    StripPipeline(ImageReader reader, List<RenderOverlay> overlays, boolean keepAlpha, int stripHeight)
+            throws IOException {
+        this.reader = reader;
+        this.overlays = overlays;
+        this.keepAlpha = keepAlpha;
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+        this.stripHeight = Math.min(stripHeight, height);
+        ColorModel colorModel = keepAlpha ? ColorModel.getRGBdefault() : new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
+        this.image = new BufferedImage(colorModel,
+                new StripRaster(colorModel.createCompatibleSampleModel(width, height)), false, null);
+        int passes = sequentialPasses(reader);
+        this.decoder = Thread.ofPlatform().daemon().name("render-strip-decoder").unstarted(() -> decode(passes));
+        this.decoder.start();
+    }
+
+    /**
+     * 渲染结果（只能按行顺序读取一次）
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * 停止解码并等待解码线程退出（编码完成或失败后调用，调用后才能释放 reader）
+     */
+    @Override
+    public void close() {
+        // ImageReader 绑定在解码线程上，不能从这里 abort；解码线程在下一次写入行或等待条带时退出
+        closed = true;
+        decoder.interrupt();
+        boolean interrupted = false;
+        while (decoder.isAlive()) {
+            try {
+                decoder.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 整图顺序解码时解码器输出的遍数，解码器不按行顺序输出时返回 0
+     * 基线 JPEG 与非隔行 PNG 只输出一遍；渐进式 JPEG 每个扫描段（SOS）输出一遍，每一遍都从第0行重新输出整幅图片
+     */
+    private static int sequentialPasses(ImageReader reader) throws IOException {
+        String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+        boolean jpeg = "jpeg".equals(format) || "jpg".equals(format);
+        if (!jpeg && !"png".equals(format)) {
+            return 0;
+        }
+        IIOMetadata metadata = reader.getImageMetadata(0);
+        Node root = metadata == null ? null
+                : metadata.getAsTree(jpeg ? "javax_imageio_jpeg_image_1.0" : "javax_imageio_png_1.0");
+        if (root == null) {
+            return 0;
+        }
+        if (jpeg) {
+            int scans = 0;
+            for (Node node = root.getLastChild().getFirstChild(); node != null; node = node.getNextSibling()) {
+                if ("sos".equals(node.getNodeName())) {
+                    scans++;
+                }
+            }
+            return scans;
+        }
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if ("IHDR".equals(node.getNodeName())) {
+                Node interlace = node.getAttributes().getNamedItem("interlaceMethod");
+                return interlace != null && "none".equals(interlace.getNodeValue()) ? 1 : 0;
+            }
+        }
+        return 0;
+    }
+
+    // ======================== 解码线程 ========================
+
+    private void decode(int passes) {
+        try {
+            Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+            if (!types.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageTypeSpecifier type = types.next();
+            BufferedImage decoded = type.createBufferedImage(width, stripHeight);
+            if (passes > 0) {
+                decodeSequential(type, decoded, passes);
+            } else {
+                decodeRegions(decoded);
+            }
+            ready.put(END);
+        } catch (InterruptedException | CancellationException e) {
+            // 编码线程已结束读取
+        } catch (Throwable e) {
+            failure = e;
+            ready.clear();
+            ready.offer(END);
+        }
+    }
+
+    /**
+     * 整图顺序解码一次：解码器写入目标图片的每一行都被转发到当前解码条带
+     * 渐进式 JPEG 只转发最后一遍，之前各遍的输出直接丢弃（ImageReadParam 限定遍数时解码器会提前停止，得到的是低质量的中间遍）
+     */
+    private void decodeSequential(ImageTypeSpecifier type, BufferedImage decoded, int passes) throws IOException {
+        SinkRaster sink = new SinkRaster(type.getSampleModel(width, height), decoded);
+        BufferedImage destination = new BufferedImage(type.getColorModel(), sink,
+                type.getColorModel().isAlphaPremultiplied(), null);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setDestination(destination);
+        IIOReadUpdateListener listener = new IIOReadUpdateListener() {
+            @Override
+            public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass,
+                                    int minX, int minY, int periodX, int periodY, int[] bands) {
+                sink.skipping = pass < passes - 1;
+            }
+
+            @Override
+            public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width,
+                                    int height, int periodX, int periodY, int[] bands) {
+            }
+
+            @Override
+            public void passComplete(ImageReader source, BufferedImage theImage) {
+            }
+
+            @Override
+            public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass,
+                                             int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+            }
+
+            @Override
+            public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width,
+                                        int height, int periodX, int periodY, int[] bands) {
+            }
+
+            @Override
+            public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+            }
+        };
+        if (passes > 1) {
+            sink.skipping = true;
+            reader.addIIOReadUpdateListener(listener);
+        }
+        try {
+            reader.read(0, param);
+        } finally {
+            reader.removeIIOReadUpdateListener(listener);
+        }
+        if (closed) {
+            throw new CancellationException();
+        }
+        sink.finish();
+    }
+
+    /**
+     * 逐条带按源区域解码（解码器不按行顺序输出时使用）
+     */
+    private void decodeRegions(BufferedImage decoded) throws IOException, InterruptedException {
+        for (int y = 0; y < height; y += stripHeight) {
+            if (closed) {
+                throw new CancellationException();
+            }
+            int rows = Math.min(stripHeight, height - y);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, y, width, rows));
+            param.setDestination(decoded);
+            reader.read(0, param);
+            emit(decoded, y, rows);
+        }
+    }
+
+    /**
+     * 将解码条带转换为 INT 像素并合成叠加层，交给编码线程
+     */
+    private void emit(BufferedImage decoded, int y, int rows) throws InterruptedException {
+        BufferedImage strip = free.poll();
+        if (strip == null) {
+            if (allocated < 2) {
+                strip = new BufferedImage(width, stripHeight,
+                        keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                allocated++;
+            } else {
+                strip = free.take();
+            }
+        }
+        Graphics2D g = strip.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            if (keepAlpha || !decoded.getColorModel().hasAlpha()) {
+                g.drawImage(decoded, 0, 0, null);
+            } else {
+                g.drawImage(decoded, 0, 0, Color.WHITE, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        for (RenderOverlay overlay : overlays) {
+            if (overlay.y() < y + rows && overlay.y() + overlay.image().getHeight() > y) {
+                AlphaBlender.blend(overlay.image(), strip, overlay.x(), overlay.y() - y);
+            }
+        }
+        ready.put(new Strip(strip, y, rows));
+    }
+
+    // ======================== 编码线程 ========================
+
+    /**
+     * 获取包含指定行的条带，离开当前条带时归还并等待下一条带
+     */
+    private Strip stripAt(int y) {
+        if (current != null && y >= current.y() && y < current.y() + current.rows()) {
+            return current;
+        }
+        if (current != null && y < current.y()) {
+            throw new IllegalStateException("分块渲染结果只能按行顺序读取：y=" + y);
+        }
+        while (current == null || y >= current.y() + current.rows()) {
+            if (current != null) {
+                free.offer(current.image());
+            }
+            try {
+                current = ready.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("等待图片条带时被中断");
+            }
+            if (current == END) {
+                ready.offer(END);
+                Throwable cause = failure;
+                if (cause instanceof IOException io) {
+                    throw new UncheckedIOException("解码图片条带失败", io);
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException("图片条带已读取完毕：y=" + y);
+            }
+        }
+        return current;
+    }
+
+    private int[] stripData(Strip strip) {
+        return ((DataBufferInt) strip.image().getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * 条带
+     *
+     * @param image 条带像素（宽为图片宽度，高为条带高度）
+     * @param y     条带起始行
+     * @param rows  有效行数
+     */
+    private record Strip(BufferedImage image, int y, int rows) {}
+
+    /**
+     * 编码器读取用的整图栅格
+     * 以整幅图片的尺寸对外暴露，行数据来自当前条带：JPEG 编码器逐行 createChild，PNG 编码器逐行 getDataElements，
+     * 两者都直接落到条带的 DataBufferInt 上，不经过逐像素的虚方法
+     */
+    private final class StripRaster extends WritableRaster {
+
+        StripRaster(SampleModel sampleModel) {
+            super(sampleModel, sampleModel.createCompatibleSampleModel(1, 1).createDataBuffer(), new Point(0, 0));
+        }
+
+        @Override
+        public Raster createChild(int parentX, int parentY, int w, int h, int childMinX, int childMinY, int[] bandList) {
+            Strip strip = stripAt(parentY);
+            if (parentY + h > strip.y() + strip.rows()) {
+                throw new UnsupportedOperationException("分块渲染结果不支持跨条带的子栅格");
+            }
+            return strip.image().getRaster().createChild(parentX, parentY - strip.y(), w, h, childMinX, childMinY, bandList);
+        }
+
+        @Override
+        public WritableRaster createWritableChild(int parentX, int parentY, int w, int h, int childMinX, int childMinY,
+                                                  int[] bandList) {
+            throw new UnsupportedOperationException("分块渲染结果只读");
+        }
+
+        @Override
+        public Object getDataElements(int x, int y, int w, int h, Object outData) {
+            int[] out = outData instanceof int[] array && array.length >= w * h ? array : new int[w * h];
+            for (int row = 0; row < h; row++) {
+                Strip strip = stripAt(y + row);
+                System.arraycopy(stripData(strip), (y + row - strip.y()) * width + x, out, row * w, w);
+            }
+            return out;
+        }
+
+        @Override
+        public Object getDataElements(int x, int y, Object outData) {
+            return getDataElements(x, y, 1, 1, outData);
+        }
+
+        @Override
+        public int[] getPixels(int x, int y, int w, int h, int[] iArray) {
+            int bands = getNumBands();
+            int[] out = iArray != null && iArray.length >= w * h * bands ? iArray : new int[w * h * bands];
+            int[] rowPixels = null;
+            for (int row = 0; row < h; row++) {
+                Strip strip = stripAt(y + row);
+                rowPixels = strip.image().getRaster().getPixels(x, y + row - strip.y(), w, 1, rowPixels);
+                System.arraycopy(rowPixels, 0, out, row * w * bands, w * bands);
+            }
+            return out;
+        }
+
+        @Override
+        public int[] getPixel(int x, int y, int[] iArray) {
+            Strip strip = stripAt(y);
+            return strip.image().getRaster().getPixel(x, y - strip.y(), iArray);
+        }
+
+        @Override
+        public int getSample(int x, int y, int b) {
+            Strip strip = stripAt(y);
+            return strip.image().getRaster().getSample(x, y - strip.y(), b);
+        }
+    }
+
+    /**
+     * 解码器写入用的整图栅格
+     * 以整幅图片的尺寸和解码器原生的像素格式对外暴露，写入的行转发到当前解码条带；
+     * 写到当前条带之后的行时先把已满的条带交给编码线程。只接受按行顺序的写入
+     */
+    private final class SinkRaster extends WritableRaster {
+
+        private final BufferedImage decoded;
+        private final WritableRaster target;
+
+        /**
+         * 是否丢弃当前遍的输出（渐进式 JPEG 的非最终遍）
+         */
+        private boolean skipping;
+        private int stripY;
+        private int maxRow = -1;
+
+        SinkRaster(SampleModel sampleModel, BufferedImage decoded) {
+            super(sampleModel, sampleModel.createCompatibleSampleModel(1, 1).createDataBuffer(), new Point(0, 0));
+            this.decoded = decoded;
+            this.target = decoded.getRaster();
+        }
+
+        /**
+         * 是否丢弃本次写入，流水线已关闭时中止解码
+         */
+        private boolean skip() {
+            if (closed) {
+                throw new CancellationException();
+            }
+            return skipping;
+        }
+
+        /**
+         * 定位写入行所在的条带，返回该行在解码条带中的行号
+         */
+        private int row(int y) {
+            if (y < stripY) {
+                throw new IllegalStateException("解码器未按行顺序输出：y=" + y);
+            }
+            while (y >= stripY + stripHeight) {
+                flush(stripHeight);
+            }
+            maxRow = Math.max(maxRow, y);
+            return y - stripY;
+        }
+
+        private void flush(int rows) {
+            try {
+                emit(decoded, stripY, rows);
+            } catch (InterruptedException e) {
+                throw new CancellationException();
+            }
+            stripY += rows;
+        }
+
+        /**
+         * 解码结束：交出最后一个条带
+         */
+        void finish() {
+            if (maxRow < height - 1) {
+                throw new IllegalStateException("解码器输出的行数不足：" + (maxRow + 1) + "/" + height);
+            }
+            if (stripY < height) {
+                flush(height - stripY);
+            }
+        }
+
+        @Override
+        public void setRect(int dx, int dy, Raster srcRaster) {
+            if (skip()) {
+                return;
+            }
+            int rows = srcRaster.getHeight();
+            for (int i = 0; i < rows; i++) {
+                Raster line = rows == 1 ? srcRaster : srcRaster.createChild(srcRaster.getMinX(), srcRaster.getMinY() + i,
+                        srcRaster.getWidth(), 1, srcRaster.getMinX(), srcRaster.getMinY() + i, null);
+                int y = dy + srcRaster.getMinY() + i;
+                target.setRect(dx, row(y) - srcRaster.getMinY() - i, line);
+            }
+        }
+
+        @Override
+        public void setPixel(int x, int y, int[] iArray) {
+            if (skip()) {
+                return;
+            }
+            target.setPixel(x, row(y), iArray);
+        }
+
+        @Override
+        public void setPixels(int x, int y, int w, int h, int[] iArray) {
+            if (skip()) {
+                return;
+            }
+            int bands = getNumBands();
+            for (int i = 0; i < h; i++) {
+                int[] line = h == 1 ? iArray : Arrays.copyOfRange(iArray, i * w * bands, (i + 1) * w * bands);
+                target.setPixels(x, row(y + i), w, 1, line);
+            }
+        }
+
+        @Override
+        public void setDataElements(int x, int y, Object inData) {
+            if (skip()) {
+                return;
+            }
+            target.setDataElements(x, row(y), inData);
+        }
+
+        @Override
+        public void setDataElements(int x, int y, int w, int h, Object inData) {
+            if (skip()) {
+                return;
+            }
+            if (h != 1) {
+                throw new UnsupportedOperationException("解码器按多行写入");
+            }
+            target.setDataElements(x, row(y), w, 1, inData);
+        }
+
+        @Override
+        public void setSample(int x, int y, int b, int s) {
+            if (skip()) {
+                return;
+            }
+            target.setSample(x, row(y), b, s);
+        }
+
+        @Override
+        public WritableRaster createWritableChild(int parentX, int parentY, int w, int h, int childMinX, int childMinY,
+                                                  int[] bandList) {
+            throw new UnsupportedOperationException("解码目标不支持子栅格");
+        }
+    }
+}
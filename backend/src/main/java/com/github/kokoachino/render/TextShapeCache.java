@@ -0,0 +1,78 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.common.util.LruCache;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.model.vo.FontVO;
+import org.springframework.stereotype.Component;
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+
+
+/**
+ * 文字排版缓存
+ * 按 (文字内容, 字体, 字号, 粗体, 倾斜角度) 缓存排版结果与轮廓，描边、阴影与填充共用同一轮廓，
+ * 重复出现的文字（公司名、版权声明、Excel 逐图文字中的重复值）不再重新执行 TextLayout 排版
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-20
+ */
+@Component
+public class TextShapeCache {
+
+    private final FontRegistry fontRegistry;
+    private final LruCache<ShapeKey, TextShape> shapeCache;
+
+    public TextShapeCache(FontRegistry fontRegistry, SystemProperties systemProperties) {
+        this.fontRegistry = fontRegistry;
+        this.shapeCache = new LruCache<>(systemProperties.getRender().getTextShapeCacheSize());
+    }
+
+    /**
+     * 获取文字排版结果，未命中时排版
+     *
+     * @param content   文字内容
+     * @param fontVO    字体信息
+     * @param size      字号（已按输出尺寸换算）
+     * @param bold      是否粗体
+     * @param skewAngle 倾斜角度（度）
+     * @return 排版结果
+     */
+    public TextShape get(String content, FontVO fontVO, float size, boolean bold, double skewAngle) {
+        String fontId = fontVO == null ? null : fontVO.getFontUrl() != null ? fontVO.getFontUrl() : fontVO.getName();
+        ShapeKey key = new ShapeKey(content, fontId, size, bold, skewAngle);
+        return shapeCache.get(key, k -> layout(content, fontVO, size, bold, skewAngle));
+    }
+
+    /**
+     * 获取排版缓存统计信息
+     */
+    public LruCache.CacheStats getStats() {
+        return shapeCache.getStats();
+    }
+
+    private TextShape layout(String content, FontVO fontVO, float size, boolean bold, double skewAngle) {
+        Font font = fontRegistry.getFont(fontVO, bold ? Font.BOLD : Font.PLAIN, size);
+        TextLayout layout = new TextLayout(content, font, RenderPlanCompiler.FONT_RENDER_CONTEXT);
+        Shape outline = layout.getOutline(null);
+        AffineTransform shapeTransform = new AffineTransform();
+        if (skewAngle != 0) {
+            shapeTransform.shear(-Math.tan(Math.toRadians(skewAngle)), 0);
+        }
+        Rectangle2D bounds = outline.getBounds2D();
+        shapeTransform.translate(-bounds.getCenterX(), -bounds.getCenterY());
+        return new TextShape(layout, shapeTransform.createTransformedShape(outline));
+    }
+
+    /**
+     * 文字排版结果（被多个渲染计划共享，不得修改）
+     *
+     * @param layout 排版结果（字形序列与度量）
+     * @param shape  以锚点为中心的文字轮廓（已应用倾斜）
+     */
+    public record TextShape(TextLayout layout, Shape shape) {}
+
+    private record ShapeKey(String content, String fontId, float size, boolean bold, double skewAngle) {}
+}
@@ -0,0 +1,162 @@
+package com.github.kokoachino.render;
+
+import org.springframework.stereotype.Component;
+import javax.imageio.ImageReader;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.*;
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * 水印渲染引擎（Java2D）
+ * 按编译好的渲染计划将水印图层光栅化为叠加层，再合成到源图片上，只负责像素绘制
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+@Component
+public class WatermarkRenderer {
+
+    /**
+     * 渲染水印：将预光栅化的叠加层按顺序合成到源图片
+     *
+     * @param source   源图片
+     * @param overlays 与源图片尺寸一致的渲染计划对应的叠加层（从底层到顶层，无可见图层时为空列表）
+     * @return 渲染后的新图片
+     */
+    public BufferedImage render(BufferedImage source, List<RenderOverlay> overlays) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+        BufferedImage target = new BufferedImage(width, height,
+                hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        for (RenderOverlay overlay : overlays) {
+            AlphaBlender.blend(overlay.image(), target, overlay.x(), overlay.y());
+        }
+        return target;
+    }
+
+    /**
+     * 分块渲染水印（超大图片）
+     * 后台解码线程按行顺序解码源图片并逐条带合成与之相交的叠加层，编码器读到哪一条带就取哪一条带，
+     * 整图像素不会同时驻留内存。返回的图片只能按行顺序读取一次，编码结束后必须关闭流水线，关闭后才能释放 reader
+     *
+     * @param reader      已设置输入（允许回溯）的图片解码器
+     * @param overlays    叠加层（从底层到顶层，无可见图层时为空列表）
+     * @param keepAlpha   是否保留透明通道（输出 JPEG 时为 false，透明区域以白色填充）
+     * @param stripHeight 条带高度（像素）
+     * @return 分块渲染流水线
+     * @throws IOException 读取图片头失败
+     */
+    public StripPipeline renderTiled(ImageReader reader, List<RenderOverlay> overlays, boolean keepAlpha, int stripHeight)
+            throws IOException {
+        return new StripPipeline(reader, overlays, keepAlpha, stripHeight);
+    }
+
+    /**
+     * 将渲染计划的全部图层光栅化为叠加层
+     * 各图层先按顺序合成到透明画布，再整体以 SRC_OVER 合成到源图片，与逐层直接绘制结果等价
+     *
+     * @param plan 渲染计划
+     * @return 叠加层，无可见图层时返回 null
+     */
+    public RenderOverlay rasterize(RenderPlan plan) {
+        Rectangle bounds = plan.bounds();
+        if (plan.layers().isEmpty() || bounds.isEmpty()) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            applyQualityHints(g);
+            g.translate(-bounds.x, -bounds.y);
+            drawLayers(g, plan);
+        } finally {
+            g.dispose();
+        }
+        return new RenderOverlay(image, bounds.x, bounds.y);
+    }
+
+    /**
+     * 按顺序绘制渲染计划中的全部图层
+     *
+     * @param g    画布
+     * @param plan 渲染计划
+     */
+    public void drawLayers(Graphics2D g, RenderPlan plan) {
+        for (RenderPlan.Layer layer : plan.layers()) {
+            Composite originalComposite = g.getComposite();
+            AffineTransform originalTransform = g.getTransform();
+            try {
+                g.transform(layer.transform());
+                g.setComposite(layer.composite());
+                if (layer instanceof RenderPlan.TextLayer text) {
+                    drawText(g, text);
+                } else if (layer instanceof RenderPlan.ImageLayer image) {
+                    // 素材已按缩放链预缩放，最终缩放比例小于 2，双线性插值即可
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g.drawImage(image.image(), -image.width() / 2, -image.height() / 2, image.width(), image.height(), null);
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                }
+            } finally {
+                g.setTransform(originalTransform);
+                g.setComposite(originalComposite);
+            }
+        }
+    }
+
+    /**
+     * 绘制文字图层：阴影、描边、填充依次叠加
+     */
+    private void drawText(Graphics2D g, RenderPlan.TextLayer text) {
+        if (text.shadow() != null) {
+            drawShadow(g, text.shape(), text.shadow());
+        }
+        if (text.stroke() != null) {
+            g.setColor(text.strokeColor());
+            g.setStroke(text.stroke());
+            g.draw(text.shape());
+        }
+        g.setPaint(text.fill());
+        g.fill(text.shape());
+    }
+
+    /**
+     * 绘制文字阴影
+     */
+    private void drawShadow(Graphics2D g, Shape shape, RenderPlan.Shadow shadow) {
+        int blur = shadow.blur();
+        if (blur <= 0) {
+            AffineTransform original = g.getTransform();
+            g.translate(shadow.offsetX(), shadow.offsetY());
+            g.setColor(shadow.color());
+            g.fill(shape);
+            g.setTransform(original);
+            return;
+        }
+        Rectangle bounds = shape.getBounds();
+        int padding = blur * 2;
+        BufferedImage blurred = ShadowBlur.render(shape, shadow.color(), blur, padding);
+        g.drawImage(blurred, (int) Math.round(bounds.x - padding + shadow.offsetX()),
+                (int) Math.round(bounds.y - padding + shadow.offsetY()), null);
+    }
+
+    /**
+     * 设置高质量渲染参数
+     */
+    static void applyQualityHints(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+}
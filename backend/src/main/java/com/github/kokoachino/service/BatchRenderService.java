@@ -0,0 +1,68 @@
+package com.github.kokoachino.service;
+
+import com.github.kokoachino.model.vo.BatchTaskVO;
+import com.github.kokoachino.model.vo.RenderProgressVO;
+import com.github.kokoachino.model.vo.RenderStatsVO;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
+
+
+/**
+ * 服务端批量渲染服务接口
+ * 由服务端渲染线程池执行水印渲染，客户端断开后任务仍会继续并自动结算
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+public interface BatchRenderService {
+
+    /**
+     * 提交服务端渲染任务
+     * 预扣点数，上传源图片后异步渲染，完成后打包结果并结算点数。
+     * 提供 Excel 行数据时，各行的文字与图片水印内容按槽位代入模板，文件路径、重命名与扩展名应用到结果文件
+     *
+     * @param templateId  水印模板ID
+     * @param description 任务描述
+     * @param images      源图片列表
+     * @param bindings    Excel 行数据（Excel 解析结果中的图片配置列表 JSON，可为空）
+     * @param mappingMode Excel 映射模式（id / order，默认 id）
+     * @return 任务VO
+     */
+    BatchTaskVO submitRenderTask(Integer templateId, String description, List<MultipartFile> images,
+                                 String bindings, String mappingMode);
+
+    /**
+     * 查询服务端渲染任务进度
+     *
+     * @param taskId 任务ID
+     * @return 渲染进度VO
+     */
+    RenderProgressVO getRenderProgress(Integer taskId);
+
+    /**
+     * 订阅服务端渲染任务进度
+     * 订阅时校验一次任务归属并推送当前进度，此后只按固定周期推送进度变化，不再读取数据库；任务结算后推送结算事件并关闭事件流
+     *
+     * @param taskId 任务ID
+     * @return SSE 事件流
+     */
+    SseEmitter subscribeRenderProgress(Integer taskId);
+
+    /**
+     * 恢复服务端渲染任务
+     * 按完成位图跳过已完成的图片，只重新发布既未完成也不在队列中的图片；全部完成但汇总中断时接管汇总。
+     * 恢复不会重新预扣点数，结算时仍只按成功数量消耗点数
+     *
+     * @param taskId 任务ID
+     * @return 渲染进度VO
+     */
+    RenderProgressVO resumeRenderTask(Integer taskId);
+
+    /**
+     * 获取服务端渲染运行统计（线程池与各级缓存命中情况）
+     *
+     * @return 渲染统计VO
+     */
+    RenderStatsVO getRenderStats();
+}
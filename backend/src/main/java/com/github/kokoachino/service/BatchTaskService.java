@@ -22,6 +22,16 @@ public interface BatchTaskService {
      */
     BatchTaskVO submitTask(SubmitBatchTaskDTO dto);
 
+    /**
+     * 提交批量任务
+     * 由服务端调度执行的任务不受同一时刻只有一个进行中任务的限制，由渲染队列按团队公平调度并限制积压量
+     *
+     * @param dto       任务信息
+     * @param scheduled 是否由服务端调度执行
+     * @return 任务VO
+     */
+    BatchTaskVO submitTask(SubmitBatchTaskDTO dto, boolean scheduled);
+
     /**
      * 完成任务
      * 接收结果ZIP文件存储到MinIO并设置过期时间，根据报表结算点数
@@ -32,4 +42,15 @@ public interface BatchTaskService {
      * @param reportJson   处理报表（JSON格式）
      */
     void completeTask(Integer taskId, Integer successCount, MultipartFile resultZip, String reportJson);
+
+    /**
+     * 结算服务端渲染任务
+     * 由渲染线程在任务结束后调用，不依赖请求上下文
+     *
+     * @param taskId        任务ID
+     * @param successCount  成功处理数量
+     * @param resultZipKey  结果ZIP文件的 MinIO Key
+     * @param reportJson    处理报表（JSON格式）
+     */
+    void settleTask(Integer taskId, Integer successCount, String resultZipKey, String reportJson);
 }
@@ -2,7 +2,10 @@ package com.github.kokoachino.service;
 
 import com.github.kokoachino.model.dto.ExcelParseSettingsDTO;
 import com.github.kokoachino.model.vo.ExcelParseResultVO;
+import com.github.kokoachino.model.vo.ExcelParseStatsVO;
 import org.springframework.web.multipart.MultipartFile;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 /**
@@ -22,4 +25,26 @@ public interface ExcelParseService {
      * @return 解析结果
      */
     ExcelParseResultVO parseExcel(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings);
+
+    /**
+     * 流式解析Excel配置文件：提交到解析线程池后立即返回，解析线程每解析出一条配置即交给消费者
+     * 重复ID按保留最后一个处理时，之前的配置已经交出，由调用方按图片ID以后出现的配置为准；
+     * 消费者抛出异常时解析终止；开始解析前取消返回的 Future 时跳过解析
+     *
+     * @param excelFile Excel文件
+     * @param mappingMode 映射模式：id-按图片ID映射，order-按顺序映射
+     * @param settings 解析设置
+     * @param consumer 配置消费者（在解析线程中调用）
+     * @return 有效数据行数
+     * @throws com.github.kokoachino.common.exception.BizException 解析队列已满时抛出
+     */
+    CompletableFuture<Integer> parseExcelAsync(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings,
+                                               Consumer<ExcelParseResultVO.ImageConfigVO> consumer);
+
+    /**
+     * 获取Excel解析统计信息（解析线程池与解析结果缓存）
+     *
+     * @return 统计信息
+     */
+    ExcelParseStatsVO getParseStats();
 }
@@ -21,6 +21,28 @@ public interface MinioService {
      */
     String uploadFile(MultipartFile file, String objectKey);
 
+    /**
+     * 上传文件流
+     *
+     * @param stream      文件流
+     * @param size        文件大小（字节）
+     * @param contentType 文件类型
+     * @param objectKey   对象Key
+     * @return 访问URL
+     */
+    String uploadFile(InputStream stream, long size, String contentType, String objectKey);
+
+    /**
+     * 上传长度未知的流（按固定分片大小分片上传，内存占用不超过一个分片）
+     *
+     * @param stream      文件流
+     * @param contentType 文件类型
+     * @param objectKey   对象Key
+     * @param partSize    分片大小（字节，不小于5MB）
+     * @return 访问URL
+     */
+    String uploadStream(InputStream stream, String contentType, String objectKey, long partSize);
+
     /**
      * 获取文件访问URL
      *
@@ -53,6 +75,22 @@ public interface MinioService {
      */
     InputStream downloadFile(String objectKey);
 
+    /**
+     * 服务端复制文件（数据不经过应用节点）
+     *
+     * @param sourceKey 源对象Key
+     * @param targetKey 目标对象Key
+     */
+    void copyFile(String sourceKey, String targetKey);
+
+    /**
+     * 获取文件 ETag（内容变化时随之变化，用于素材缓存校验）
+     *
+     * @param objectKey 对象Key
+     * @return ETag
+     */
+    String getETag(String objectKey);
+
     /**
      * 获取文件流（别名方法，与 downloadFile 相同）
      *
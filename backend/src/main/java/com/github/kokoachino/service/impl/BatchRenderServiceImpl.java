@@ -0,0 +1,816 @@
+package com.github.kokoachino.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.common.enums.LockActionEnum;
+import com.github.kokoachino.common.enums.MappingModeEnum;
+import com.github.kokoachino.common.exception.BizException;
+import com.github.kokoachino.common.result.ResultCode;
+import com.github.kokoachino.common.util.AsyncTaskUtils;
+import com.github.kokoachino.common.util.LockUtils;
+import com.github.kokoachino.common.util.TeamContext;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.mapper.BatchTaskMapper;
+import com.github.kokoachino.mapper.WatermarkTemplateMapper;
+import com.github.kokoachino.model.dto.CompleteTaskDTO;
+import com.github.kokoachino.model.dto.ImageWatermarkDTO;
+import com.github.kokoachino.model.dto.SubmitBatchTaskDTO;
+import com.github.kokoachino.model.dto.WatermarkBaseDTO;
+import com.github.kokoachino.model.dto.WatermarkConfigDTO;
+import com.github.kokoachino.model.entity.BatchTask;
+import com.github.kokoachino.model.entity.WatermarkTemplate;
+import com.github.kokoachino.model.vo.BatchTaskVO;
+import com.github.kokoachino.model.vo.ExcelParseResultVO;
+import com.github.kokoachino.model.vo.RenderProgressVO;
+import com.github.kokoachino.model.vo.RenderStatsVO;
+import com.github.kokoachino.render.FontRegistry;
+import com.github.kokoachino.render.ImageAssetCache;
+import com.github.kokoachino.render.ImageEncoder;
+import com.github.kokoachino.render.RenderAdmission;
+import com.github.kokoachino.render.RenderJob;
+import com.github.kokoachino.render.RenderJobStore;
+import com.github.kokoachino.render.RenderOverlay;
+import com.github.kokoachino.render.RenderOverlayCache;
+import com.github.kokoachino.render.RenderPlanCache;
+import com.github.kokoachino.render.RenderProgressHub;
+import com.github.kokoachino.render.RenderQueue;
+import com.github.kokoachino.render.RenderResultCache;
+import com.github.kokoachino.render.RenderWorkerPool;
+import com.github.kokoachino.render.ResultZipStreamer;
+import com.github.kokoachino.render.RowBinding;
+import com.github.kokoachino.render.RowPlanBinder;
+import com.github.kokoachino.render.StripPipeline;
+import com.github.kokoachino.render.TextShapeCache;
+import com.github.kokoachino.render.WatermarkRenderer;
+import com.github.kokoachino.service.BatchRenderService;
+import com.github.kokoachino.service.BatchTaskService;
+import com.github.kokoachino.service.MinioService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * 服务端批量渲染服务实现
+ * 源图片先上传至 MinIO，每张图片作为一个渲染单元发布到分布式渲染队列，任意节点领取后下载、渲染、编码并上传结果分片；
+ * 最后一个单元完成后由抢占到汇总权的节点将分片流式打包上传并结算点数
+ *
+ * @author Kokoa_Chino
+ * @date 2026-02-18
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchRenderServiceImpl implements BatchRenderService {
+
+    private final BatchTaskService batchTaskService;
+    private final BatchTaskMapper batchTaskMapper;
+    private final WatermarkTemplateMapper templateMapper;
+    private final MinioService minioService;
+    private final WatermarkRenderer watermarkRenderer;
+    private final RenderPlanCache renderPlanCache;
+    private final RenderOverlayCache renderOverlayCache;
+    private final RowPlanBinder rowPlanBinder;
+    private final FontRegistry fontRegistry;
+    private final TextShapeCache textShapeCache;
+    private final ImageAssetCache imageAssetCache;
+    private final RenderWorkerPool renderWorkerPool;
+    private final RenderQueue renderQueue;
+    private final RenderJobStore renderJobStore;
+    private final RenderResultCache renderResultCache;
+    private final RenderProgressHub renderProgressHub;
+    private final RenderAdmission renderAdmission;
+    private final ImageEncoder imageEncoder;
+    private final ResultZipStreamer resultZipStreamer;
+    private final AsyncTaskUtils asyncTaskUtils;
+    private final LockUtils lockUtils;
+    private final ObjectMapper objectMapper;
+    private final SystemProperties systemProperties;
+
+    @Override
+    public BatchTaskVO submitRenderTask(Integer templateId, String description, List<MultipartFile> images,
+                                        String bindings, String mappingMode) {
+        if (images == null || images.isEmpty()) {
+            throw new BizException(ResultCode.BATCH_RENDER_IMAGES_EMPTY);
+        }
+        List<ExcelParseResultVO.ImageConfigVO> rows = parseBindings(bindings);
+        MappingModeEnum mode = MappingModeEnum.fromValue(mappingMode);
+        WatermarkTemplate template = templateMapper.selectById(templateId);
+        if (template == null) {
+            throw new BizException(ResultCode.TEMPLATE_NOT_FOUND);
+        }
+        if (!template.getTeamId().equals(TeamContext.getTeamId())) {
+            throw new BizException(ResultCode.FORBIDDEN);
+        }
+        WatermarkConfigDTO config = renderPlanCache.getConfig(template);
+        Map<String, ExcelParseResultVO.ImageConfigVO> rowsById = mode == MappingModeEnum.ID ? indexRows(rows) : Map.of();
+        SubmitBatchTaskDTO submitDTO = new SubmitBatchTaskDTO();
+        submitDTO.setImageCount(images.size());
+        submitDTO.setDescription(description);
+        Integer teamId = TeamContext.getTeamId();
+        if (renderQueue.depth(teamId) + images.size() > systemProperties.getRender().getQueueMaxDepthPerTeam()) {
+            throw new BizException(ResultCode.BATCH_RENDER_QUEUE_FULL);
+        }
+        BatchTaskVO task = batchTaskService.submitTask(submitDTO, true);
+        List<RenderJob.Item> items = new ArrayList<>(images.size());
+        try {
+            for (int i = 0; i < images.size(); i++) {
+                MultipartFile image = images.get(i);
+                String fileName = resolveFileName(image.getOriginalFilename(), i);
+                String sourceKey = "batch-sources/" + task.getTaskNo() + "/" + i + "_" + fileName;
+                // 上传时顺带计算源图片摘要，用于渲染结果缓存
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (InputStream in = new DigestInputStream(image.getInputStream(), digest)) {
+                    minioService.uploadFile(in, image.getSize(), image.getContentType(), sourceKey);
+                }
+                String sourceHash = HexFormat.of().formatHex(digest.digest());
+                ExcelParseResultVO.ImageConfigVO row = mode == MappingModeEnum.ORDER
+                        ? (i < rows.size() ? rows.get(i) : null)
+                        : matchRow(rowsById, fileName);
+                items.add(row == null
+                        ? new RenderJob.Item(i, fileName, sourceKey, sourceHash, fileName, null)
+                        : new RenderJob.Item(i, fileName, sourceKey, sourceHash, resolveEntryName(row, fileName, i),
+                                new RowBinding(row.getTextWatermarks(), row.getImageWatermarks())));
+            }
+            RenderJob job = new RenderJob(task.getId(), task.getTaskNo(), templateId, template.getVersion(), config, items);
+            renderJobStore.save(job);
+            renderQueue.publish(teamId, job);
+            log.info("服务端渲染任务已提交：taskId={}, templateId={}, version={}, imageCount={}, rowCount={}",
+                    task.getId(), templateId, template.getVersion(), items.size(), rows.size());
+            return task;
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            log.error("服务端渲染任务提交失败，返还预扣点数：taskId={}", task.getId(), e);
+            batchTaskService.settleTask(task.getId(), 0, null, null);
+            // 已发布的渲染单元找不到作业状态时会被直接丢弃
+            try {
+                renderJobStore.delete(task.getId(), task.getTaskNo());
+            } catch (RuntimeException ex) {
+                log.warn("删除渲染作业状态失败：taskId={}", task.getId(), ex);
+            }
+            deleteObjects(items.stream().map(RenderJob.Item::sourceKey).toList());
+            throw new BizException(ResultCode.BATCH_RENDER_FAILED);
+        }
+    }
+
+    @Override
+    public RenderProgressVO getRenderProgress(Integer taskId) {
+        BatchTask task = loadOwnTask(taskId);
+        RenderJobStore.Progress progress = renderJobStore.progress(taskId);
+        boolean settled = task.getCompletedAt() != null;
+        return RenderProgressVO.builder()
+                .taskId(taskId)
+                .total(task.getImageCount())
+                .completed(progress != null ? progress.completed() : settled ? task.getImageCount() : 0L)
+                .failed(progress != null ? progress.failed() : null)
+                .settled(settled)
+                .build();
+    }
+
+    @Override
+    public SseEmitter subscribeRenderProgress(Integer taskId) {
+        loadOwnTask(taskId);
+        return renderProgressHub.subscribe(taskId, () -> progressEvent(batchTaskMapper.selectById(taskId)));
+    }
+
+    /**
+     * 读取任务当前进度：已结算的任务以数据库中的结算结果为准，否则读取 Redis 作业状态
+     */
+    private RenderProgressHub.ProgressEvent progressEvent(BatchTask task) {
+        int total = task.getImageCount();
+        if (task.getCompletedAt() != null) {
+            int success = task.getSuccessCount() == null ? 0 : task.getSuccessCount();
+            return new RenderProgressHub.ProgressEvent(task.getId(), total, total, total - success, true);
+        }
+        RenderJobStore.Progress progress = renderJobStore.progress(task.getId());
+        return new RenderProgressHub.ProgressEvent(task.getId(), total,
+                progress != null ? progress.completed() : 0L, progress != null ? progress.failed() : 0L, false);
+    }
+
+    @Override
+    public RenderProgressVO resumeRenderTask(Integer taskId) {
+        BatchTask task = loadOwnTask(taskId);
+        if (task.getCompletedAt() != null) {
+            throw new BizException(ResultCode.TASK_ALREADY_COMPLETED);
+        }
+        return lockUtils.executeWithLock(LockUtils.getLockKey(LockActionEnum.RENDER_RESUME, taskId), () -> {
+            RenderJob job = renderJobStore.loadCheckpoint(task.getTaskNo());
+            if (job == null) {
+                throw new BizException(ResultCode.BATCH_RENDER_CHECKPOINT_NOT_FOUND);
+            }
+            if (renderJobStore.progress(taskId) == null) {
+                renderJobStore.restore(job);
+            }
+            BitSet done = renderJobStore.completedIndexes(taskId);
+            Set<Integer> queued = renderQueue.queuedIndexes(task.getTeamId(), taskId);
+            List<RenderJob.Item> pending = job.items().stream()
+                    .filter(item -> !done.get(item.index()) && !queued.contains(item.index()))
+                    .toList();
+            if (!pending.isEmpty()) {
+                renderQueue.publish(task.getTeamId(), new RenderJob(job.taskId(), job.taskNo(), job.templateId(), job.templateVersion(),
+                        job.config(), pending));
+            } else if (queued.isEmpty() && renderJobStore.takeOverFinalizer(taskId, renderQueue.getConsumerName())) {
+                log.info("渲染任务全部单元已完成但未结算，接管汇总：taskId={}", taskId);
+                asyncTaskUtils.execute(() -> finish(job));
+            }
+            log.info("服务端渲染任务已恢复：taskId={}, total={}, completed={}, queued={}, requeued={}",
+                    taskId, job.items().size(), done.cardinality(), queued.size(), pending.size());
+            return RenderProgressVO.builder()
+                    .taskId(taskId)
+                    .total(job.items().size())
+                    .completed((long) done.cardinality())
+                    .settled(false)
+                    .requeued(pending.size())
+                    .build();
+        });
+    }
+
+    @Override
+    public RenderStatsVO getRenderStats() {
+        return RenderStatsVO.builder()
+                .workerPool(renderWorkerPool.getStats())
+                .admission(renderAdmission.getStats())
+                .queue(renderQueue.getStats())
+                .resultCache(renderResultCache.getStats())
+                .progress(renderProgressHub.getStats())
+                .configCache(renderPlanCache.getConfigStats())
+                .planCache(renderPlanCache.getPlanStats())
+                .overlayCache(renderOverlayCache.getStats())
+                .fontCache(fontRegistry.getStats())
+                .textShapeCache(textShapeCache.getStats())
+                .imageAssetCache(imageAssetCache.getStats())
+                .encoder(imageEncoder.getStats())
+                .build();
+    }
+
+    /**
+     * 启动分布式渲染队列消费（每个节点都参与消费，与任务提交节点无关）
+     */
+    @PostConstruct
+    public void startConsumer() {
+        renderQueue.start(this::process);
+    }
+
+    /**
+     * 处理一个渲染单元：渲染、编码并上传结果分片，记录结果后若全部单元已完成则由本节点汇总。
+     * 记录结果失败时 Future 异常完成，消息不确认，等待重投
+     */
+    private CompletableFuture<Void> process(RenderQueue.Unit unit) {
+        RenderJob job = renderJobStore.load(unit.taskId());
+        RenderJob.Item item = unit.item();
+        if (job == null) {
+            log.warn("渲染作业不存在或已结束，丢弃渲染单元：taskId={}, index={}", unit.taskId(), item.index());
+            return CompletableFuture.completedFuture(null);
+        }
+        if (unit.deliveries() > systemProperties.getRender().getQueueMaxDeliveries()) {
+            log.warn("渲染单元超过最大投递次数，按失败处理：taskId={}, index={}, deliveries={}",
+                    job.taskId(), item.index(), unit.deliveries());
+            complete(job, new RenderJobStore.UnitResult(item.index(), item.fileName(), item.sourceKey(),
+                    item.entryName(), null, 0, 0, "渲染超时"));
+            return CompletableFuture.completedFuture(null);
+        }
+        return io(() -> resultCacheKey(job, item))
+                .thenCompose(cacheKey -> io(() -> reuseCached(job, item, cacheKey))
+                        .thenCompose(cached -> cached != null
+                                ? CompletableFuture.completedFuture(cached)
+                                : renderItem(job, item).thenCompose(result -> io(() -> uploadPart(job, result, cacheKey))
+                                        .whenComplete((ignored, e) -> {
+                                            if (e != null) {
+                                                deleteQuietly(result.output());
+                                            }
+                                        }))))
+                .thenAccept(result -> complete(job, result));
+    }
+
+    /**
+     * 计算渲染结果缓存键。图片水印素材（行数据代入后的地址）以当前 ETag 参与计算，素材在原地址更新后不再命中旧结果；
+     * 获取 ETag 需要请求素材元数据，因此在 I/O 线程执行。任一素材无法确定版本（获取失败或外部地址未返回 ETag）时不使用缓存
+     *
+     * @return 缓存键摘要，不使用缓存时返回 null
+     */
+    private String resultCacheKey(RenderJob job, RenderJob.Item item) {
+        List<WatermarkBaseDTO> watermarks = job.config() == null ? null : job.config().getWatermarks();
+        List<String> assetETags = new ArrayList<>();
+        int imageSlot = 0;
+        for (WatermarkBaseDTO watermark : watermarks == null ? List.<WatermarkBaseDTO>of() : watermarks) {
+            if (!(watermark instanceof ImageWatermarkDTO image)) {
+                continue;
+            }
+            String bound = item.binding() == null ? null : item.binding().image(imageSlot);
+            imageSlot++;
+            String url = bound != null ? bound : image.getImageUrl();
+            if (url == null) {
+                continue;
+            }
+            String etag;
+            try {
+                etag = imageAssetCache.resolveETag(url);
+            } catch (RuntimeException e) {
+                log.warn("获取图片水印素材ETag失败，不使用渲染结果缓存：taskId={}, index={}, url={}",
+                        job.taskId(), item.index(), url, e);
+                return null;
+            }
+            if (etag == null || etag.isEmpty()) {
+                return null;
+            }
+            assetETags.add(etag);
+        }
+        return renderResultCache.key(item.sourceHash(), job.templateId(), job.templateVersion(),
+                resolveFormat(item.entryName()), item.binding(), assetETags);
+    }
+
+    /**
+     * 将阻塞 I/O 阶段（MinIO 下载、复制与上传）交给异步任务执行器，渲染线程池只做解码与合成。
+     * 执行器拒绝时 Future 异常完成，消息不确认，等待重投
+     */
+    private <T> CompletableFuture<T> io(Supplier<T> task) {
+        try {
+            return asyncTaskUtils.supplyAsync(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 命中渲染结果缓存时由 MinIO 服务端复制为本次任务的结果分片，跳过下载与渲染
+     *
+     * @return 渲染单元结果，未命中时返回 null
+     */
+    private RenderJobStore.UnitResult reuseCached(RenderJob job, RenderJob.Item item, String cacheKey) {
+        if (cacheKey == null) {
+            return null;
+        }
+        String partKey = partKey(job, item);
+        RenderResultCache.Entry entry = renderResultCache.copyTo(cacheKey, partKey);
+        if (entry == null) {
+            return null;
+        }
+        return new RenderJobStore.UnitResult(item.index(), item.fileName(), item.sourceKey(), item.entryName(),
+                partKey, entry.size(), entry.crc(), null);
+    }
+
+    private static String partKey(RenderJob job, RenderJob.Item item) {
+        return "batch-results/" + job.taskNo() + "/parts/" + item.index();
+    }
+
+    /**
+     * 上传单张渲染结果分片，上传后删除临时文件，并将分片复制一份放入渲染结果缓存
+     */
+    private RenderJobStore.UnitResult uploadPart(RenderJob job, ItemResult result, String cacheKey) {
+        RenderJob.Item item = result.item();
+        if (result.output() == null) {
+            return new RenderJobStore.UnitResult(item.index(), item.fileName(), item.sourceKey(), item.entryName(),
+                    null, 0, 0, result.error());
+        }
+        String partKey = partKey(job, item);
+        try (InputStream in = Files.newInputStream(result.output())) {
+            long size = Files.size(result.output());
+            long crc = ResultZipStreamer.Session.crc32(result.output());
+            minioService.uploadFile(in, size, "application/octet-stream", partKey);
+            if (cacheKey != null) {
+                renderResultCache.store(cacheKey, partKey, size, crc);
+            }
+            return new RenderJobStore.UnitResult(item.index(), item.fileName(), item.sourceKey(), item.entryName(),
+                    partKey, size, crc, null);
+        } catch (IOException | RuntimeException e) {
+            log.error("上传渲染结果分片失败：taskId={}, index={}", job.taskId(), item.index(), e);
+            return new RenderJobStore.UnitResult(item.index(), item.fileName(), item.sourceKey(), item.entryName(),
+                    null, 0, 0, "结果上传失败");
+        } finally {
+            deleteQuietly(result.output());
+        }
+    }
+
+    /**
+     * 记录渲染单元结果，全部单元完成且本节点抢占到汇总权时异步汇总
+     */
+    private void complete(RenderJob job, RenderJobStore.UnitResult result) {
+        RenderJobStore.Completion completion = renderJobStore.complete(job.taskId(), result,
+                renderQueue.getConsumerName());
+        renderProgressHub.report(job.taskId(), completion.progress());
+        if (!completion.finalizer()) {
+            return;
+        }
+        try {
+            asyncTaskUtils.execute(() -> finish(job));
+        } catch (RejectedExecutionException rejected) {
+            finish(job);
+        }
+    }
+
+    /**
+     * 汇总：按序号将各结果分片流式写入结果压缩包，上传完成后结算点数并清理分片、源图片与作业状态。
+     * 分片先下载到临时文件并校验大小与 CRC，失败时有限次重试；仍失败的分片只按该图片失败处理，
+     * 只有写入压缩包本身失败才使整个任务失败
+     */
+    private void finish(RenderJob job) {
+        List<RenderJobStore.UnitResult> results = renderJobStore.listResults(job.taskId());
+        Set<Integer> packed = new HashSet<>();
+        Map<Integer, String> packErrors = new HashMap<>();
+        String resultZipKey = null;
+        try {
+            ResultZipStreamer.Session session = resultZipStreamer.open("batch-results/" + job.taskNo() + "/result.zip");
+            for (RenderJobStore.UnitResult result : results) {
+                if (result.partKey() == null) {
+                    continue;
+                }
+                Path part = downloadPart(job, result);
+                if (part == null) {
+                    packErrors.put(result.index(), "结果分片读取失败");
+                    continue;
+                }
+                try (InputStream in = Files.newInputStream(part)) {
+                    if (!session.addEntry(result.entryName(), result.index(), in, result.size(), result.crc())) {
+                        // 写入压缩包失败，会话已中止，压缩包不会上传
+                        break;
+                    }
+                    packed.add(result.index());
+                } catch (IOException e) {
+                    log.warn("打开结果分片临时文件失败：taskId={}, index={}", job.taskId(), result.index(), e);
+                    packErrors.put(result.index(), "结果分片读取失败");
+                } finally {
+                    deleteQuietly(part);
+                }
+            }
+            resultZipKey = session.finish();
+        } catch (IOException e) {
+            log.error("创建结果压缩包上传会话失败：taskId={}", job.taskId(), e);
+        }
+        int successCount = resultZipKey == null ? 0 : packed.size();
+        try {
+            batchTaskService.settleTask(job.taskId(), successCount, resultZipKey,
+                    buildReport(results, packed, packErrors, resultZipKey != null));
+            renderProgressHub.settled(job.taskId(), results.size(), successCount);
+        } catch (Exception e) {
+            log.error("服务端渲染任务结算失败：taskId={}", job.taskId(), e);
+        }
+        List<String> keys = new ArrayList<>(results.size() * 2);
+        for (RenderJobStore.UnitResult result : results) {
+            keys.add(result.sourceKey());
+            if (result.partKey() != null) {
+                keys.add(result.partKey());
+            }
+        }
+        deleteObjects(keys);
+        renderJobStore.delete(job.taskId(), job.taskNo());
+    }
+
+    /**
+     * 下载结果分片到临时文件，校验大小与 CRC 后返回；下载失败或校验不通过时重试，达到次数上限后返回 null
+     */
+    private Path downloadPart(RenderJob job, RenderJobStore.UnitResult result) {
+        int attempts = Math.max(1, systemProperties.getRender().getPartDownloadAttempts());
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            Path file = null;
+            try {
+                file = Files.createTempFile("render-part-" + job.taskNo() + "-", ".tmp");
+                try (InputStream in = minioService.downloadFile(result.partKey())) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (Files.size(file) != result.size() || ResultZipStreamer.Session.crc32(file) != result.crc()) {
+                    throw new IOException("结果分片大小或 CRC 不一致");
+                }
+                return file;
+            } catch (IOException | RuntimeException e) {
+                log.warn("读取渲染结果分片失败：taskId={}, index={}, attempt={}/{}",
+                        job.taskId(), result.index(), attempt, attempts, e);
+                deleteQuietly(file);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 渲染单张图片，渲染结果交给编码阶段写入临时文件
+     * 源图片先在 I/O 线程下载落盘以支持按区域回溯解码，只读取图片头估算堆内存占用并申请内存准入，准入后再提交渲染线程解码与合成；
+     * 像素数超过阈值时使用分块渲染，避免整图解码占用大量堆内存
+     */
+    private CompletableFuture<ItemResult> renderItem(RenderJob job, RenderJob.Item item) {
+        return io(() -> downloadSource(job, item)).thenCompose(source -> source == null
+                ? CompletableFuture.completedFuture(new ItemResult(item, null, "源图片下载失败"))
+                : renderSource(job, item, source));
+    }
+
+    /**
+     * 下载源图片到临时文件
+     *
+     * @return 临时文件路径，下载失败时返回 null
+     */
+    private Path downloadSource(RenderJob job, RenderJob.Item item) {
+        Path sourceFile = null;
+        try {
+            sourceFile = Files.createTempFile("render-source-" + job.taskNo() + "-", ".tmp");
+            try (InputStream in = minioService.downloadFile(item.sourceKey())) {
+                Files.copy(in, sourceFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return sourceFile;
+        } catch (IOException | RuntimeException e) {
+            log.warn("源图片下载失败：taskId={}, index={}, file={}", job.taskId(), item.index(), item.fileName(), e);
+            deleteQuietly(sourceFile);
+            return null;
+        }
+    }
+
+    private CompletableFuture<ItemResult> renderSource(RenderJob job, RenderJob.Item item, Path source) {
+        try {
+            int[] size = readSize(source);
+            SystemProperties.RenderConfig config = systemProperties.getRender();
+            boolean tiled = config.getTileThresholdMp() > 0
+                    && (long) size[0] * size[1] > config.getTileThresholdMp() * 1_000_000L;
+            long footprint = renderAdmission.estimate(size[0], size[1], tiled, config.getTileHeight());
+            return renderAdmission.acquire(footprint)
+                    .thenCompose(permit -> {
+                        try {
+                            return renderWorkerPool.submit(() -> renderAdmitted(job, item, source, tiled, permit));
+                        } catch (RuntimeException e) {
+                            permit.close();
+                            throw e;
+                        }
+                    })
+                    .thenCompose(Function.identity())
+                    .whenComplete((ignored, e) -> deleteQuietly(source));
+        } catch (Exception e) {
+            log.warn("图片渲染失败：taskId={}, index={}, file={}", job.taskId(), item.index(), item.fileName(), e);
+            deleteQuietly(source);
+            return CompletableFuture.completedFuture(new ItemResult(item, null, e.getMessage()));
+        }
+    }
+
+    /**
+     * 只读取图片头获取尺寸，不解码像素
+     *
+     * @return {宽度, 高度}
+     */
+    private int[] readSize(Path sourceFile) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(sourceFile.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 在已准入的内存预算内解码、合成并编码；预算在编码完成后归还
+     * 分块渲染的图片在编码时才逐条带解码，因此在渲染线程内直接编码
+     */
+    private CompletableFuture<ItemResult> renderAdmitted(RenderJob job, RenderJob.Item item, Path sourceFile,
+                                                         boolean tiled, RenderAdmission.Permit permit) {
+        Path file = null;
+        try {
+            String format = resolveFormat(item.entryName());
+            file = Files.createTempFile("render-" + job.taskNo() + "-", "." + format);
+            BufferedImage output = null;
+            try (ImageInputStream iis = ImageIO.createImageInputStream(sourceFile.toFile())) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+                if (!readers.hasNext()) {
+                    throw new IOException("不支持的图片格式");
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(iis, false, true);
+                    int width = reader.getWidth(0);
+                    int height = reader.getHeight(0);
+                    List<RenderOverlay> overlays = rowPlanBinder.bind(job.templateId(), job.templateVersion(), job.config(),
+                            item.binding(), width, height);
+                    if (tiled) {
+                        boolean keepAlpha = !"jpg".equals(format) && hasAlpha(reader);
+                        try (StripPipeline pipeline = watermarkRenderer.renderTiled(reader, overlays, keepAlpha,
+                                systemProperties.getRender().getTileHeight());
+                             OutputStream out = Files.newOutputStream(file)) {
+                            imageEncoder.encode(pipeline.image(), format, out);
+                        }
+                    } else {
+                        output = watermarkRenderer.render(reader.read(0), overlays);
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+            if (output == null) {
+                permit.close();
+                return CompletableFuture.completedFuture(new ItemResult(item, file, null));
+            }
+            Path encoded = file;
+            return imageEncoder.submit(output, format, encoded).handle((ignored, e) -> {
+                permit.close();
+                if (e == null) {
+                    return new ItemResult(item, encoded, null);
+                }
+                log.warn("图片编码失败：taskId={}, index={}, file={}", job.taskId(), item.index(), item.fileName(), e);
+                deleteQuietly(encoded);
+                return new ItemResult(item, null, e.getMessage());
+            });
+        } catch (Exception e) {
+            permit.close();
+            log.warn("图片渲染失败：taskId={}, index={}, file={}", job.taskId(), item.index(), item.fileName(), e);
+            deleteQuietly(file);
+            return CompletableFuture.completedFuture(new ItemResult(item, null, e.getMessage()));
+        }
+    }
+
+    /**
+     * 判断源图片是否带透明通道
+     */
+    private boolean hasAlpha(ImageReader reader) throws IOException {
+        Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+        return types.hasNext() && types.next().getColorModel().hasAlpha();
+    }
+
+    /**
+     * 查询当前团队的批量任务
+     */
+    private BatchTask loadOwnTask(Integer taskId) {
+        BatchTask task = batchTaskMapper.selectById(taskId);
+        if (task == null) {
+            throw new BizException(ResultCode.BATCH_TASK_NOT_FOUND);
+        }
+        if (!task.getTeamId().equals(TeamContext.getTeamId())) {
+            throw new BizException(ResultCode.FORBIDDEN);
+        }
+        return task;
+    }
+
+    /**
+     * 删除 MinIO 对象（源图片与结果分片）
+     */
+    private void deleteObjects(List<String> keys) {
+        for (String key : keys) {
+            try {
+                minioService.deleteFile(key);
+            } catch (Exception e) {
+                log.warn("删除对象失败：key={}", key);
+            }
+        }
+    }
+
+    /**
+     * 构建处理报表（与前端完成回调的报表格式一致）
+     */
+    private String buildReport(List<RenderJobStore.UnitResult> results, Set<Integer> packed,
+                               Map<Integer, String> packErrors, boolean uploaded) {
+        List<CompleteTaskDTO.TaskReportItemDTO> report = new ArrayList<>(results.size());
+        for (RenderJobStore.UnitResult result : results) {
+            CompleteTaskDTO.TaskReportItemDTO item = new CompleteTaskDTO.TaskReportItemDTO();
+            item.setImageId(result.fileName());
+            boolean success = uploaded && packed.contains(result.index());
+            item.setStatus(success ? "success" : "failed");
+            item.setErrorMessage(success ? null : Objects.requireNonNullElse(result.error(),
+                    packErrors.getOrDefault(result.index(), "结果上传失败")));
+            report.add(item);
+        }
+        try {
+            return objectMapper.writeValueAsString(report);
+        } catch (JsonProcessingException e) {
+            log.error("生成处理报表失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 解析 Excel 行数据（Excel 解析接口返回的图片配置列表 JSON），未提供时返回空列表
+     */
+    private List<ExcelParseResultVO.ImageConfigVO> parseBindings(String bindings) {
+        if (bindings == null || bindings.isBlank()) {
+            return List.of();
+        }
+        try {
+            List<ExcelParseResultVO.ImageConfigVO> rows = objectMapper.readValue(bindings, new TypeReference<>() {});
+            return rows == null ? List.of() : rows;
+        } catch (JsonProcessingException e) {
+            throw new BizException(ResultCode.BATCH_RENDER_BINDING_INVALID);
+        }
+    }
+
+    /**
+     * 按图片ID索引 Excel 行数据（Excel 解析阶段已按重复ID策略去重，此处以最后一行为准）
+     */
+    private Map<String, ExcelParseResultVO.ImageConfigVO> indexRows(List<ExcelParseResultVO.ImageConfigVO> rows) {
+        Map<String, ExcelParseResultVO.ImageConfigVO> rowsById = new HashMap<>();
+        for (ExcelParseResultVO.ImageConfigVO row : rows) {
+            if (row != null && row.getImageId() != null && !row.getImageId().isEmpty()) {
+                rowsById.put(row.getImageId(), row);
+            }
+        }
+        return rowsById;
+    }
+
+    /**
+     * ID映射模式下按文件名匹配 Excel 行，图片ID可带或不带扩展名
+     */
+    private ExcelParseResultVO.ImageConfigVO matchRow(Map<String, ExcelParseResultVO.ImageConfigVO> rowsById,
+                                                       String fileName) {
+        ExcelParseResultVO.ImageConfigVO row = rowsById.get(fileName);
+        if (row != null) {
+            return row;
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? rowsById.get(fileName.substring(0, dot)) : null;
+    }
+
+    /**
+     * 应用 Excel 行的文件路径、重命名与扩展名，生成结果压缩包内的条目路径
+     * 多个文件路径时取第一个；路径中的 "." 与 ".." 段会被忽略，避免条目逃逸出压缩包根目录
+     */
+    private String resolveEntryName(ExcelParseResultVO.ImageConfigVO row, String fileName, int index) {
+        String name = fileName;
+        if (row.getRename() != null && !row.getRename().isBlank()) {
+            int dot = fileName.lastIndexOf('.');
+            name = row.getRename().trim() + (dot > 0 ? fileName.substring(dot) : "");
+        }
+        if (row.getExtension() != null && !row.getExtension().isBlank()) {
+            int dot = name.lastIndexOf('.');
+            name = (dot > 0 ? name.substring(0, dot) : name) + "." + row.getExtension();
+        }
+        name = resolveFileName(name, index);
+        if (row.getFilePaths() == null || row.getFilePaths().isEmpty() || row.getFilePaths().getFirst() == null) {
+            return name;
+        }
+        StringBuilder path = new StringBuilder();
+        for (String segment : row.getFilePaths().getFirst().replace('\\', '/').split("/")) {
+            String trimmed = segment.trim();
+            if (!trimmed.isEmpty() && !".".equals(trimmed) && !"..".equals(trimmed)) {
+                path.append(trimmed).append('/');
+            }
+        }
+        return path + name;
+    }
+
+    /**
+     * 根据文件名确定输出格式，未知格式统一输出 PNG
+     */
+    private String resolveFormat(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+            return "jpg";
+        }
+        return "png";
+    }
+
+    /**
+     * 规范化文件名，去除路径并保证扩展名与输出格式一致
+     */
+    private String resolveFileName(String originalFilename, int index) {
+        String name = originalFilename == null ? "" : originalFilename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).trim();
+        if (name.isEmpty()) {
+            name = "image_" + index;
+        }
+        String format = resolveFormat(name);
+        String lower = name.toLowerCase();
+        if (!lower.endsWith(".jpg") && !lower.endsWith(".jpeg") && !lower.endsWith(".png")) {
+            int dot = name.lastIndexOf('.');
+            name = (dot > 0 ? name.substring(0, dot) : name) + "." + format;
+        }
+        return name;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败：{}", path);
+        }
+    }
+
+    /**
+     * 单张图片渲染结果
+     *
+     * @param item   渲染单元
+     * @param output 输出临时文件（上传结果分片后即删除，失败时为 null）
+     * @param error  错误信息
+     */
+    private record ItemResult(RenderJob.Item item, Path output, String error) {}
+}
@@ -1,5 +1,6 @@
 package com.github.kokoachino.service.impl;
 
+import com.github.kokoachino.common.enums.BatchTaskModeEnum;
 import com.github.kokoachino.common.enums.EventTypeEnum;
 import com.github.kokoachino.common.exception.BizException;
 import com.github.kokoachino.common.result.ResultCode;
@@ -53,6 +54,12 @@ public class BatchTaskServiceImpl implements BatchTaskService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public BatchTaskVO submitTask(SubmitBatchTaskDTO dto) {
+        return submitTask(dto, false);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTaskVO submitTask(SubmitBatchTaskDTO dto, boolean scheduled) {
         Integer userId = UserContext.getUserId();
         Integer teamId = TeamContext.getTeamId();
         if (dto.getImageCount() > systemProperties.getBatchTask().getMaxImagesPerTask()) {
@@ -66,8 +73,7 @@ public class BatchTaskServiceImpl implements BatchTaskService {
                 throw new BizException(ResultCode.LOCK_ACQUIRE_FAILED);
             }
             try {
-                int uncompletedCount = batchTaskMapper.countUncompletedByUserId(userId);
-                if (uncompletedCount > 0) {
+                if (!scheduled && batchTaskMapper.countUncompletedByUserId(userId) > 0) {
                     throw new BizException(ResultCode.BATCH_TASK_SUBMIT_FAILED);
                 }
                 int totalPoints = dto.getImageCount();
@@ -87,6 +93,7 @@ public class BatchTaskServiceImpl implements BatchTaskService {
                 task.setTaskNo(taskNo);
                 task.setTeamId(teamId);
                 task.setCreatedById(userId);
+                task.setMode((scheduled ? BatchTaskModeEnum.SERVER : BatchTaskModeEnum.CLIENT).getValue());
                 task.setDescription(dto.getDescription());
                 task.setImageCount(dto.getImageCount());
                 task.setSuccessCount(0);
@@ -129,6 +136,10 @@ public class BatchTaskServiceImpl implements BatchTaskService {
                 if (!task.getCreatedById().equals(userId)) {
                     throw new BizException(ResultCode.FORBIDDEN);
                 }
+                // 服务端渲染任务由渲染流程汇总结果并结算，前端提前完成会在渲染进行中返还点数
+                if (BatchTaskModeEnum.SERVER.getValue().equals(task.getMode())) {
+                    throw new BizException(ResultCode.BATCH_TASK_SERVER_RENDERED);
+                }
                 if (task.getCompletedAt() != null) {
                     throw new BizException(ResultCode.TASK_ALREADY_COMPLETED);
                 }
@@ -145,27 +156,36 @@ public class BatchTaskServiceImpl implements BatchTaskService {
                         log.error("结果ZIP文件上传失败：taskId={}", taskId, e);
                     }
                 }
-                int consumedPoints = successCount;
-                int refundedPoints = task.getDeductedPoints() - consumedPoints;
-                if (refundedPoints > 0) {
-                    pointService.refundPoints(
-                            task.getTeamId(), userId, refundedPoints,
-                            "batch_task", task.getTaskNo(),
-                            "批量任务返还点数：" + refundedPoints + "点"
-                    );
+                settle(task, userId, successCount, resultZipKey, reportJson);
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BizException(ResultCode.LOCK_ACQUIRE_FAILED);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void settleTask(Integer taskId, Integer successCount, String resultZipKey, String reportJson) {
+        BatchTask task = batchTaskMapper.selectById(taskId);
+        if (task == null) {
+            throw new BizException(ResultCode.BATCH_TASK_NOT_FOUND);
+        }
+        String lockKey = TASK_LOCK_PREFIX + task.getCreatedById();
+        RLock lock = redissonClient.getLock(lockKey);
+        try {
+            boolean acquired = lock.tryLock(5, 30, TimeUnit.SECONDS);
+            if (!acquired) {
+                throw new BizException(ResultCode.LOCK_ACQUIRE_FAILED);
+            }
+            try {
+                task = batchTaskMapper.selectById(taskId);
+                if (task.getCompletedAt() != null) {
+                    throw new BizException(ResultCode.TASK_ALREADY_COMPLETED);
                 }
-                task.setSuccessCount(successCount);
-                task.setConsumedPoints(consumedPoints);
-                task.setRefundedPoints(refundedPoints);
-                task.setResultZipKey(resultZipKey);
-                task.setReport(reportJson);
-                task.setCompletedAt(LocalDateTime.now());
-                task.setUpdatedAt(LocalDateTime.now());
-                batchTaskMapper.updateById(task);
-                log.info("批量任务完成：taskId={}, successCount={}, consumedPoints={}, refundedPoints={}",
-                        taskId, successCount, consumedPoints, refundedPoints);
-                operationLogService.log(EventTypeEnum.BATCH_TASK_COMPLETE, taskId, task.getTaskNo(),
-                        Map.of("successCount", successCount, "consumedPoints", consumedPoints, "refundedPoints", refundedPoints));
+                settle(task, task.getCreatedById(), Math.min(successCount, task.getImageCount()), resultZipKey, reportJson);
             } finally {
                 lock.unlock();
             }
@@ -175,6 +195,36 @@ public class BatchTaskServiceImpl implements BatchTaskService {
         }
     }
 
+    /**
+     * 结算任务：返还未消耗点数并记录完成信息
+     */
+    private void settle(BatchTask task, Integer userId, Integer successCount, String resultZipKey, String reportJson) {
+        Integer taskId = task.getId();
+        int consumedPoints = successCount;
+        int refundedPoints = task.getDeductedPoints() - consumedPoints;
+        if (refundedPoints > 0) {
+            pointService.refundPoints(
+                    task.getTeamId(), userId, refundedPoints,
+                    "batch_task", task.getTaskNo(),
+                    "批量任务返还点数：" + refundedPoints + "点"
+            );
+        }
+        task.setSuccessCount(successCount);
+        task.setConsumedPoints(consumedPoints);
+        task.setRefundedPoints(refundedPoints);
+        task.setResultZipKey(resultZipKey);
+        task.setReport(reportJson);
+        task.setCompletedAt(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+        batchTaskMapper.updateById(task);
+        log.info("批量任务完成：taskId={}, successCount={}, consumedPoints={}, refundedPoints={}",
+                taskId, successCount, consumedPoints, refundedPoints);
+        // 服务端渲染任务在渲染线程中结算，没有请求上下文，需显式传入团队与用户信息
+        String username = UserContext.getUser() != null ? UserContext.getUser().getUsername() : null;
+        operationLogService.log(EventTypeEnum.BATCH_TASK_COMPLETE, task.getTeamId(), userId, username, taskId, task.getTaskNo(),
+                null, null, Map.of("successCount", successCount, "consumedPoints", consumedPoints, "refundedPoints", refundedPoints));
+    }
+
     private String generateTaskNo() {
         String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
         String randomNum = String.format("%05d", ThreadLocalRandom.current().nextInt(100000));
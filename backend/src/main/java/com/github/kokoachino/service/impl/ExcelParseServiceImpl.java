@@ -2,6 +2,7 @@ package com.github.kokoachino.service.impl;
 
 import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.exception.ExcelAnalysisException;
 import com.alibaba.excel.read.listener.ReadListener;
 import com.github.kokoachino.common.enums.DuplicateHandlingEnum;
 import com.github.kokoachino.common.enums.HeaderEnum;
@@ -9,16 +10,26 @@ import com.github.kokoachino.common.enums.InvalidCharHandlingEnum;
 import com.github.kokoachino.common.enums.MappingModeEnum;
 import com.github.kokoachino.common.exception.BizException;
 import com.github.kokoachino.common.result.ResultCode;
+import com.github.kokoachino.common.util.DelimitedTextReader;
+import com.github.kokoachino.common.util.ExcelParseExecutor;
+import com.github.kokoachino.common.util.ExcelParseResultCache;
 import com.github.kokoachino.model.dto.ExcelParseSettingsDTO;
 import com.github.kokoachino.model.vo.ExcelParseResultVO;
+import com.github.kokoachino.model.vo.ExcelParseStatsVO;
 import com.github.kokoachino.service.ExcelParseService;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 
@@ -36,64 +47,117 @@ public class ExcelParseServiceImpl implements ExcelParseService {
     private static final Pattern INVALID_CHAR_PATTERN = Pattern.compile("[*^\\\\/:|\"<>?]");
     private static final Pattern INVALID_EXTENSION_PATTERN = Pattern.compile("[^a-zA-Z0-9]");
 
-    private String currentErrorFolderId;
+    private final ExcelParseExecutor excelParseExecutor;
+    private final ExcelParseResultCache excelParseResultCache;
 
     @Override
     public ExcelParseResultVO parseExcel(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings) {
-        if (settings == null) {
-            settings = new ExcelParseSettingsDTO();
+        ExcelParseSettingsDTO parseSettings = settings != null ? settings : new ExcelParseSettingsDTO();
+        String cacheKey = excelParseResultCache.key(excelFile, mappingMode, parseSettings);
+        ExcelParseResultVO cached = excelParseResultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
         }
-        currentErrorFolderId = null;
-        // 1. 读取Excel原始数据
-        List<List<String>> allRows = readExcelData(excelFile);
-        if (allRows.isEmpty()) {
+        ExcelParseResultVO result = excelParseExecutor.execute(() -> doParseExcel(excelFile, mappingMode, parseSettings));
+        excelParseResultCache.put(cacheKey, result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Integer> parseExcelAsync(MultipartFile excelFile, String mappingMode,
+                                                      ExcelParseSettingsDTO settings,
+                                                      Consumer<ExcelParseResultVO.ImageConfigVO> consumer) {
+        ExcelParseSettingsDTO parseSettings = settings != null ? settings : new ExcelParseSettingsDTO();
+        return excelParseExecutor.submit(() -> doParseExcel(excelFile, mappingMode, parseSettings, consumer));
+    }
+
+    @Override
+    public ExcelParseStatsVO getParseStats() {
+        return ExcelParseStatsVO.builder()
+                .parsePool(excelParseExecutor.getStats())
+                .resultCache(excelParseResultCache.getStats())
+                .build();
+    }
+
+    private ExcelParseResultVO doParseExcel(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings) {
+        List<ExcelParseResultVO.ImageConfigVO> configs = new ArrayList<>();
+        // 逐行读取：首行解析表头，其余行读到即校验并转换，不保留原始单元格数据
+        ParseContext parser = new ParseContext(MappingModeEnum.fromValue(mappingMode), settings, configs::add, configs);
+        readExcelData(excelFile, parser);
+        if (parser.getHeaderInfo() == null) {
             throw new BizException(ResultCode.EXCEL_EMPTY);
         }
-        // 2. 解析表头，识别各列位置
-        List<String> headerRow = allRows.getFirst();
-        HeaderInfo headerInfo = parseHeader(headerRow);
-        // 3. 校验映射模式与表头匹配
-        MappingModeEnum mode = MappingModeEnum.fromValue(mappingMode);
-        if (mode == MappingModeEnum.ID && headerInfo.getIdColumnIndex() == -1) {
-            throw new BizException(ResultCode.EXCEL_MISSING_ID_COLUMN);
-        }
-        // 4. 解析数据行
-        List<List<String>> dataRows = allRows.size() > 1 ? allRows.subList(1, allRows.size()) : new ArrayList<>();
-        List<ExcelParseResultVO.ImageConfigVO> configs = parseDataRows(dataRows, headerInfo, mode, settings);
-        // 5. 构建返回结果
         return ExcelParseResultVO.builder()
                 .configs(configs)
                 .validRowCount(configs.size())
                 .build();
     }
 
+    private int doParseExcel(MultipartFile excelFile, String mappingMode, ExcelParseSettingsDTO settings,
+                             Consumer<ExcelParseResultVO.ImageConfigVO> consumer) {
+        ParseContext parser = new ParseContext(MappingModeEnum.fromValue(mappingMode), settings, consumer, null);
+        readExcelData(excelFile, parser);
+        if (parser.getHeaderInfo() == null) {
+            throw new BizException(ResultCode.EXCEL_EMPTY);
+        }
+        return parser.getConfigCount();
+    }
+
     /**
-     * 读取Excel原始数据
+     * 流式读取Excel原始数据，每读到一行即交给行处理器
+     * CSV / TSV 文件按文件扩展名识别，直接按字节扫描读取，不经过 EasyExcel
      */
-    private List<List<String>> readExcelData(MultipartFile excelFile) {
-        List<List<String>> allRows = new ArrayList<>();
+    private void readExcelData(MultipartFile excelFile, Consumer<List<String>> rowHandler) {
+        Character delimiter = DelimitedTextReader.delimiterOf(excelFile.getOriginalFilename());
+        if (delimiter != null) {
+            readDelimitedText(excelFile, delimiter, rowHandler);
+            return;
+        }
         try {
             EasyExcel.read(excelFile.getInputStream(), new ReadListener<Map<Integer, String>>() {
+                private int rowCount;
                 @Override
                 public void invoke(Map<Integer, String> data, AnalysisContext context) {
                     int maxCol = data.keySet().stream().max(Integer::compareTo).orElse(-1);
-                    List<String> row = new ArrayList<>();
+                    List<String> row = new ArrayList<>(maxCol + 1);
                     for (int i = 0; i <= maxCol; i++) {
                         String value = data.get(i);
                         row.add(value != null ? value.trim() : "");
                     }
-                    allRows.add(row);
+                    rowCount++;
+                    rowHandler.accept(row);
                 }
                 @Override
                 public void doAfterAllAnalysed(AnalysisContext context) {
-                    log.info("Excel读取完成，共{}行", allRows.size());
+                    log.info("Excel读取完成，共{}行", rowCount);
                 }
             }).sheet(0).headRowNumber(0).doRead();
         } catch (IOException e) {
             log.error("Excel文件读取失败", e);
             throw new BizException(ResultCode.EXCEL_READ_FAILED);
+        } catch (ExcelAnalysisException e) {
+            // 行处理器中抛出的业务异常与输出异常会被 EasyExcel 包装，还原为原始异常
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof BizException || cause instanceof UncheckedIOException) {
+                    throw (RuntimeException) cause;
+                }
+            }
+            log.error("Excel文件解析失败", e);
+            throw new BizException(ResultCode.EXCEL_READ_FAILED);
+        }
+    }
+
+    /**
+     * 流式读取 CSV / TSV 数据，每读到一行即交给行处理器（行处理器中的异常原样抛出）
+     */
+    private void readDelimitedText(MultipartFile file, char delimiter, Consumer<List<String>> rowHandler) {
+        try (InputStream in = file.getInputStream()) {
+            int rowCount = DelimitedTextReader.read(in, delimiter, rowHandler);
+            log.info("{}读取完成，共{}行", delimiter == ',' ? "CSV" : "TSV", rowCount);
+        } catch (IOException e) {
+            log.error("{}文件读取失败", delimiter == ',' ? "CSV" : "TSV", e);
+            throw new BizException(ResultCode.EXCEL_READ_FAILED);
         }
-        return allRows;
     }
 
     /**
@@ -170,60 +234,52 @@ public class ExcelParseServiceImpl implements ExcelParseService {
     }
 
     /**
-     * 解析数据行
+     * 解析单个数据行
+     *
+     * @param row     行数据
+     * @param context 本次解析的上下文
+     * @return 配置对象，空行或被跳过时返回 null
      */
-    private List<ExcelParseResultVO.ImageConfigVO> parseDataRows(
-            List<List<String>> dataRows,
-            HeaderInfo headerInfo,
-            MappingModeEnum mode,
-            ExcelParseSettingsDTO settings) {
-        List<ExcelParseResultVO.ImageConfigVO> configs = new ArrayList<>();
-        Map<String, Integer> idToConfigIndex = new HashMap<>();
-        DuplicateHandlingEnum duplicateHandling = settings.getDuplicateHandlingEnum();
-        InvalidCharHandlingEnum invalidCharHandling = settings.getInvalidCharHandlingEnum();
-        int rowNumber = 2;
-        for (List<String> row : dataRows) {
-            // 1. 确保行数据长度足够
-            ensureRowSize(row, headerInfo);
-            // 2. 检查是否为空行
-            if (isRowEmpty(row, headerInfo)) {
-                rowNumber++;
-                continue;
+    private ExcelParseResultVO.ImageConfigVO parseDataRow(List<String> row, ParseContext context) {
+        HeaderInfo headerInfo = context.getHeaderInfo();
+        int rowNumber = context.getRowNumber();
+        Map<String, Integer> idToConfigIndex = context.getIdToConfigIndex();
+        // 1. 确保行数据长度足够
+        ensureRowSize(row, headerInfo);
+        // 2. 检查是否为空行
+        if (isRowEmpty(row, headerInfo)) {
+            return null;
+        }
+        // 3. 提取图片ID
+        String imageId = null;
+        if (headerInfo.getIdColumnIndex() >= 0 && headerInfo.getIdColumnIndex() < row.size()) {
+            imageId = row.get(headerInfo.getIdColumnIndex());
+        }
+        // 4. ID映射模式下的处理
+        if (context.getMode() == MappingModeEnum.ID) {
+            if (imageId == null || imageId.isEmpty()) {
+                return null;
             }
-            // 3. 提取图片ID
-            String imageId = null;
-            if (headerInfo.getIdColumnIndex() >= 0 && headerInfo.getIdColumnIndex() < row.size()) {
-                imageId = row.get(headerInfo.getIdColumnIndex());
+            if (idToConfigIndex.containsKey(imageId)) {
+                handleDuplicate(imageId, rowNumber, idToConfigIndex, context.getSettings().getDuplicateHandlingEnum(),
+                        context.getConfigs());
             }
-            // 4. ID映射模式下的处理
-            if (mode == MappingModeEnum.ID) {
-                if (imageId == null || imageId.isEmpty()) {
-                    rowNumber++;
-                    continue;
-                }
-                if (idToConfigIndex.containsKey(imageId)) {
-                    handleDuplicate(imageId, rowNumber, idToConfigIndex, duplicateHandling, configs);
-                }
-                idToConfigIndex.put(imageId, configs.size());
-            }
-            // 5. 提取各区域数据
-            List<String> textWatermarks = extractRangeValues(row, headerInfo.getTextWatermarkStart(), headerInfo.getTextWatermarkEnd());
-            List<String> imageWatermarks = extractRangeValues(row, headerInfo.getImageWatermarkStart(), headerInfo.getImageWatermarkEnd());
-            // 6. 统一处理文件路径、重命名、拓展名的异常字符
-            ProcessResult processResult = processFilePathRenameExtension(row, headerInfo, invalidCharHandling, rowNumber);
-            // 7. 构建配置对象
-            ExcelParseResultVO.ImageConfigVO config = ExcelParseResultVO.ImageConfigVO.builder()
-                    .imageId(imageId)
-                    .textWatermarks(textWatermarks)
-                    .imageWatermarks(imageWatermarks)
-                    .filePaths(processResult.filePaths)
-                    .rename(processResult.rename)
-                    .extension(processResult.extension)
-                    .build();
-            configs.add(config);
-            rowNumber++;
+            idToConfigIndex.put(imageId, context.getConfigCount());
         }
-        return configs;
+        // 5. 提取各区域数据
+        List<String> textWatermarks = extractRangeValues(row, headerInfo.getTextWatermarkStart(), headerInfo.getTextWatermarkEnd());
+        List<String> imageWatermarks = extractRangeValues(row, headerInfo.getImageWatermarkStart(), headerInfo.getImageWatermarkEnd());
+        // 6. 统一处理文件路径、重命名、拓展名的异常字符
+        ProcessResult processResult = processFilePathRenameExtension(row, context);
+        // 7. 构建配置对象
+        return ExcelParseResultVO.ImageConfigVO.builder()
+                .imageId(imageId)
+                .textWatermarks(textWatermarks)
+                .imageWatermarks(imageWatermarks)
+                .filePaths(processResult.filePaths)
+                .rename(processResult.rename)
+                .extension(processResult.extension)
+                .build();
     }
 
     /**
@@ -282,6 +338,7 @@ public class ExcelParseServiceImpl implements ExcelParseService {
 
     /**
      * 处理重复ID
+     * 流式解析时之前的配置已经输出，无法回收，保留最后一个时由调用方按图片ID以后出现的配置为准
      */
     private void handleDuplicate(String imageId, int rowNumber, Map<String, Integer> idToConfigIndex,
                                  DuplicateHandlingEnum handling, List<ExcelParseResultVO.ImageConfigVO> configs) {
@@ -289,8 +346,9 @@ public class ExcelParseServiceImpl implements ExcelParseService {
             case ERROR:
                 throw new BizException(ResultCode.EXCEL_DUPLICATE_ID, String.format("第%s行存在重复的图片ID：%s", rowNumber, imageId));
             case LAST:
-                int existingIndex = idToConfigIndex.get(imageId);
-                configs.set(existingIndex, null);
+                if (configs != null) {
+                    configs.set(idToConfigIndex.get(imageId), null);
+                }
                 log.info("第{}行重复ID '{}' 将覆盖之前的记录", rowNumber, imageId);
                 break;
             case FIRST:
@@ -329,8 +387,10 @@ public class ExcelParseServiceImpl implements ExcelParseService {
     /**
      * 统一处理文件路径、重命名、拓展名的异常字符
      */
-    private ProcessResult processFilePathRenameExtension(List<String> row, HeaderInfo headerInfo,
-                                                         InvalidCharHandlingEnum handling, int rowNumber) {
+    private ProcessResult processFilePathRenameExtension(List<String> row, ParseContext context) {
+        HeaderInfo headerInfo = context.getHeaderInfo();
+        InvalidCharHandlingEnum handling = context.getSettings().getInvalidCharHandlingEnum();
+        int rowNumber = context.getRowNumber();
         List<String> filePaths = extractRangeValues(row, headerInfo.getFilePathStart(), headerInfo.getFilePathEnd());
         String rename = extractSingleValue(row, headerInfo.getRenameColumnIndex());
         String extension = extractSingleValue(row, headerInfo.getExtensionColumnIndex());
@@ -385,7 +445,7 @@ public class ExcelParseServiceImpl implements ExcelParseService {
             }
             case ERROR_FOLDER -> {
                 if (anyInvalid) {
-                    result.filePaths = List.of(generateErrorId());
+                    result.filePaths = List.of(generateErrorId(context));
                     result.rename = renameInvalid ? null : rename;
                     result.extension = extensionInvalid ? null : extension;
                 }
@@ -426,13 +486,66 @@ public class ExcelParseServiceImpl implements ExcelParseService {
     }
 
     /**
-     * 生成错误ID（单次解析中唯一）
+     * 生成错误ID（单次解析中唯一，保存在本次解析的上下文中）
+     */
+    private String generateErrorId(ParseContext context) {
+        if (context.getErrorFolderId() == null) {
+            context.setErrorFolderId(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        }
+        return "ERROR-" + context.getErrorFolderId();
+    }
+
+    /**
+     * 解析上下文（每次解析调用独立创建，服务本身不保存任何解析状态，可并发解析）
+     * 同时作为逐行解析器：首行解析表头并校验映射模式，其余行读到即转换为配置对象并交给消费者；
+     * 重复ID只保留图片ID到结果下标的索引，内存随不同ID数量增长，而不随原始单元格数据增长
      */
-    private String generateErrorId() {
-        if (currentErrorFolderId == null) {
-            currentErrorFolderId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    @Getter
+    private class ParseContext implements Consumer<List<String>> {
+
+        private final MappingModeEnum mode;
+        private final ExcelParseSettingsDTO settings;
+        private final Consumer<ExcelParseResultVO.ImageConfigVO> consumer;
+        private final List<ExcelParseResultVO.ImageConfigVO> configs;
+        private final Map<String, Integer> idToConfigIndex = new HashMap<>();
+        private HeaderInfo headerInfo;
+        private int rowNumber;
+        private int configCount;
+
+        /**
+         * ERROR 文件夹ID（异常字符按统一放入ERROR文件夹处理时首次用到才生成）
+         */
+        @Setter
+        private String errorFolderId;
+
+        /**
+         * @param consumer 配置对象消费者
+         * @param configs  已解析的结果列表（保留最后一个重复ID时用于清除之前的配置，流式解析时为 null）
+         */
+        ParseContext(MappingModeEnum mode, ExcelParseSettingsDTO settings,
+                  Consumer<ExcelParseResultVO.ImageConfigVO> consumer, List<ExcelParseResultVO.ImageConfigVO> configs) {
+            this.mode = mode;
+            this.settings = settings;
+            this.consumer = consumer;
+            this.configs = configs;
+        }
+
+        @Override
+        public void accept(List<String> row) {
+            rowNumber++;
+            if (headerInfo == null) {
+                headerInfo = parseHeader(row);
+                if (mode == MappingModeEnum.ID && headerInfo.getIdColumnIndex() == -1) {
+                    throw new BizException(ResultCode.EXCEL_MISSING_ID_COLUMN);
+                }
+                return;
+            }
+            ExcelParseResultVO.ImageConfigVO config = parseDataRow(row, this);
+            if (config != null) {
+                consumer.accept(config);
+                configCount++;
+            }
         }
-        return "ERROR-" + currentErrorFolderId;
     }
 
     /**
@@ -27,6 +27,11 @@ public class MinioServiceImpl implements MinioService {
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
 
+    /**
+     * 存储桶是否已检查并设置策略（批量上传时避免每个文件重复检查）
+     */
+    private volatile boolean bucketReady = false;
+
     @Override
     public String uploadFile(MultipartFile file, String objectKey) {
         try {
@@ -47,6 +52,44 @@ public class MinioServiceImpl implements MinioService {
         }
     }
 
+    @Override
+    public String uploadFile(InputStream stream, long size, String contentType, String objectKey) {
+        try {
+            ensureBucketExists();
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectKey)
+                            .stream(stream, size, -1)
+                            .contentType(contentType)
+                            .build()
+            );
+            return getFileUrl(objectKey);
+        } catch (Exception e) {
+            log.error("上传文件到MinIO失败", e);
+            throw new RuntimeException("上传文件失败", e);
+        }
+    }
+
+    @Override
+    public String uploadStream(InputStream stream, String contentType, String objectKey, long partSize) {
+        try {
+            ensureBucketExists();
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectKey)
+                            .stream(stream, -1, partSize)
+                            .contentType(contentType)
+                            .build()
+            );
+            return getFileUrl(objectKey);
+        } catch (Exception e) {
+            log.error("分片上传文件到MinIO失败", e);
+            throw new RuntimeException("上传文件失败", e);
+        }
+    }
+
     @Override
     public String getFileUrl(String objectKey) {
         return String.format("%s/%s/%s", minioConfig.getEndpoint(), minioConfig.getBucketName(), objectKey);
@@ -99,6 +142,40 @@ public class MinioServiceImpl implements MinioService {
         }
     }
 
+    @Override
+    public void copyFile(String sourceKey, String targetKey) {
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(targetKey)
+                            .source(CopySource.builder()
+                                    .bucket(minioConfig.getBucketName())
+                                    .object(sourceKey)
+                                    .build())
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("复制MinIO文件失败", e);
+            throw new RuntimeException("复制文件失败", e);
+        }
+    }
+
+    @Override
+    public String getETag(String objectKey) {
+        try {
+            return minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(objectKey)
+                            .build()
+            ).etag();
+        } catch (Exception e) {
+            log.error("获取MinIO文件信息失败", e);
+            throw new RuntimeException("获取文件信息失败", e);
+        }
+    }
+
     /**
      * 生成字体文件的ObjectKey
      *
@@ -115,6 +192,9 @@ public class MinioServiceImpl implements MinioService {
      * 确保存储桶存在并设置公开访问策略
      */
     private void ensureBucketExists() throws Exception {
+        if (bucketReady) {
+            return;
+        }
         boolean exists = minioClient.bucketExists(
                 BucketExistsArgs.builder()
                         .bucket(minioConfig.getBucketName())
@@ -129,6 +209,7 @@ public class MinioServiceImpl implements MinioService {
         }
         // 设置存储桶为公开可读（无论是否新创建都设置策略）
         setBucketPublicPolicy();
+        bucketReady = true;
     }
 
     /**
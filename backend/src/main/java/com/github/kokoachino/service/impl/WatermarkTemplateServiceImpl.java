@@ -22,6 +22,8 @@ import com.github.kokoachino.model.entity.WatermarkTemplateDraft;
 import com.github.kokoachino.model.vo.DraftVO;
 import com.github.kokoachino.model.vo.WatermarkTemplateVO;
 import com.github.kokoachino.common.enums.EventTypeEnum;
+import com.github.kokoachino.render.RenderOverlayCache;
+import com.github.kokoachino.render.RenderPlanCache;
 import com.github.kokoachino.service.OperationLogService;
 import com.github.kokoachino.service.WatermarkTemplateService;
 import lombok.RequiredArgsConstructor;
@@ -52,6 +54,8 @@ public class WatermarkTemplateServiceImpl extends ServiceImpl<WatermarkTemplateM
     private final LockUtils lockUtils;
     private final OperationLogService operationLogService;
     private final SystemProperties systemProperties;
+    private final RenderPlanCache renderPlanCache;
+    private final RenderOverlayCache renderOverlayCache;
 
     @Override
     public List<WatermarkTemplateVO> getTemplateList(Integer teamId) {
@@ -77,6 +81,8 @@ public class WatermarkTemplateServiceImpl extends ServiceImpl<WatermarkTemplateM
         }
         String templateName = template.getName();
         templateMapper.deleteById(templateId);
+        renderPlanCache.evictTemplate(templateId);
+        renderOverlayCache.evictTemplate(templateId);
         operationLogService.log(EventTypeEnum.TEMPLATE_DELETE, templateId, templateName,
                 Map.of("deletedBy", isLeader ? "leader" : "creator"));
     }
@@ -289,7 +295,7 @@ public class WatermarkTemplateServiceImpl extends ServiceImpl<WatermarkTemplateM
                 .id(template.getId())
                 .name(template.getName())
                 .teamId(template.getTeamId())
-                .config(parseConfig(template.getConfig()))
+                .config(renderPlanCache.getConfig(template))
                 .createdById(template.getCreatedById())
                 .createdByUsername(creator != null ? creator.getUsername() : null)
                 .version(template.getVersion())
@@ -0,0 +1,42 @@
+package com.github.kokoachino;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+
+/**
+ * 基准测试工具
+ * 供 @Tag("benchmark") 的测试使用（mvn test -Pbenchmark），先预热再取多轮平均耗时并打印到标准输出
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * 测量单次操作的平均耗时
+     *
+     * @param name       名称（用于输出）
+     * @param warmup     预热次数
+     * @param iterations 计时次数
+     * @param task       被测操作，返回值会被消费以免被 JIT 消除
+     * @return 平均耗时（纳秒）
+     */
+    public static double measure(String name, int warmup, int iterations, Callable<?> task) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < warmup; i++) {
+            sink = task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = task.call();
+        }
+        double nanos = (double) (System.nanoTime() - start) / iterations;
+        System.out.printf(Locale.ROOT, "[benchmark] %-40s %10.3f ms/op (%s)%n", name, nanos / 1_000_000,
+                sink == null ? "-" : Integer.toHexString(sink.hashCode()));
+        return nanos;
+    }
+}
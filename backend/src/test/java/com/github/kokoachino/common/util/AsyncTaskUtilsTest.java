@@ -0,0 +1,62 @@
+package com.github.kokoachino.common.util;
+
+import com.github.kokoachino.config.SystemProperties;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * AsyncTaskUtils 测试类
+ * 验证虚拟线程模式下等待执行许可的任务被中断时，调用方持有的 Future 会结束而不是永久等待
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class AsyncTaskUtilsTest {
+
+    @Test
+    void interruptedWhileWaitingForPermitCancelsFutures() throws Exception {
+        SystemProperties properties = new SystemProperties();
+        properties.getAsync().setVirtualThreads(true);
+        properties.getAsync().setMaxConcurrency(1);
+        AsyncTaskUtils asyncTaskUtils = new AsyncTaskUtils(properties);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 占用唯一的执行许可，忽略中断直到测试放行，保证等待中的任务拿不到许可
+        Future<String> blocker = asyncTaskUtils.submit(() -> {
+            running.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    return "blocker";
+                } catch (InterruptedException ignored) {
+                    // 继续占用许可
+                }
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> submitted = asyncTaskUtils.submit(() -> "submitted");
+        CompletableFuture<String> supplied = asyncTaskUtils.supplyAsync(() -> "supplied");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (asyncTaskUtils.getStats().queueSize() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, asyncTaskUtils.getStats().queueSize());
+
+        // 关闭时被中断会立即 shutdownNow，中断所有等待许可的虚拟线程
+        Thread closer = new Thread(asyncTaskUtils::shutdown);
+        closer.start();
+        closer.interrupt();
+        closer.join(5000);
+
+        assertThrows(CancellationException.class, () -> submitted.get(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> supplied.get(5, TimeUnit.SECONDS));
+        assertTrue(submitted.isCancelled());
+        assertTrue(supplied.isCancelled());
+        assertEquals(0, asyncTaskUtils.getStats().queueSize());
+        release.countDown();
+        assertEquals("blocker", blocker.get(5, TimeUnit.SECONDS));
+    }
+}
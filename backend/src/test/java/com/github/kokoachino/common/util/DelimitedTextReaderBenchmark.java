@@ -0,0 +1,71 @@
+package com.github.kokoachino.common.util;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.github.kokoachino.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * CSV 读取基准测试
+ * 对比字节扫描读取与原先的 EasyExcel CSV 读取在 100000 行配置文件上的每秒行数
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+@Tag("benchmark")
+class DelimitedTextReaderBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Test
+    void readCsv() throws Exception {
+        byte[] csv = csv();
+        double scanner = Benchmarks.measure("DelimitedTextReader", 3, 10, () -> {
+            int[] cells = {0};
+            DelimitedTextReader.read(new ByteArrayInputStream(csv), ',', row -> cells[0] += row.size());
+            return cells[0];
+        });
+        double easyExcel = Benchmarks.measure("EasyExcel CSV", 3, 10, () -> {
+            int[] cells = {0};
+            EasyExcel.read(new ByteArrayInputStream(csv), new ReadListener<Map<Integer, String>>() {
+                @Override
+                public void invoke(Map<Integer, String> data, AnalysisContext context) {
+                    cells[0] += data.size();
+                }
+                @Override
+                public void doAfterAllAnalysed(AnalysisContext context) {
+                }
+            }).excelType(ExcelTypeEnum.CSV).charset(StandardCharsets.UTF_8).sheet(0).headRowNumber(0).doRead();
+            return cells[0];
+        });
+        System.out.printf(Locale.ROOT, "[benchmark] DelimitedTextReader %.0f rows/s, EasyExcel CSV %.0f rows/s%n",
+                ROWS * 1e9 / scanner, ROWS * 1e9 / easyExcel);
+    }
+
+    /**
+     * 与实际配置文件相近的表头与数据：中文文字水印、带逗号的引号字段与多列路径
+     */
+    private byte[] csv() {
+        StringBuilder text = new StringBuilder(ROWS * 80);
+        text.append("id,文字水印,,图片水印,文件路径,,重命名,拓展名\r\n");
+        for (int i = 0; i < ROWS; i++) {
+            text.append("img").append(i).append(',')
+                    .append("团队水印 ").append(i).append(',')
+                    .append("\"第二行, 含逗号 \"\"").append(i % 10).append("\"\"\"").append(',')
+                    .append("https://example.com/logo.png").append(',')
+                    .append("项目").append(i % 100).append(',')
+                    .append("批次").append(i % 7).append(',')
+                    .append("output_").append(i).append(',')
+                    .append("jpg").append("\r\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.kokoachino.common.util;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * DelimitedTextReader 测试类
+ * 每个用例同时以整块读取与逐字节读取两种方式输入，覆盖字段、引号、换行与 BOM 跨缓冲区的情况
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class DelimitedTextReaderTest {
+
+    @Test
+    void quotedFieldsKeepDelimitersAndNewlines() throws IOException {
+        assertRows("id,文字水印\r\n1,\"a,b\nc\"\r\n2,\"x\r\ny\"\n",
+                List.of("id", "文字水印"), List.of("1", "a,b\nc"), List.of("2", "x\r\ny"));
+    }
+
+    @Test
+    void doubledQuotesAreEscapes() throws IOException {
+        assertRows("1,\"say \"\"hi\"\"\",\"\"\"\"\n2,a\"b,\"\"\n",
+                List.of("1", "say \"hi\"", "\""), List.of("2", "a\"b", ""));
+    }
+
+    @Test
+    void acceptsCrLfAndBareCrLineEndings() throws IOException {
+        assertRows("a,1\rb,2\r\nc,3\nd,4\r\r\ne,5",
+                List.of("a", "1"), List.of("b", "2"), List.of("c", "3"), List.of("d", "4"), List.of("e", "5"));
+    }
+
+    @Test
+    void trimsFieldsAndSkipsBlankRows() throws IOException {
+        assertRows("  id , name \n,,\n\n 1 ,\" x \"\n",
+                List.of("id", "name"), List.of("1", "x"));
+    }
+
+    @Test
+    void unterminatedLastRecordIsKept() throws IOException {
+        assertRows("1,a\n2,\"b,c", List.of("1", "a"), List.of("2", "b,c"));
+    }
+
+    @Test
+    void skipsBomSplitAcrossReads() throws IOException {
+        byte[] text = "id,x\n1,y\n".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[text.length + 3];
+        bytes[0] = (byte) 0xEF;
+        bytes[1] = (byte) 0xBB;
+        bytes[2] = (byte) 0xBF;
+        System.arraycopy(text, 0, bytes, 3, text.length);
+        List<List<String>> expected = List.of(List.of("id", "x"), List.of("1", "y"));
+        assertEquals(expected, read(new ByteArrayInputStream(bytes), ','));
+        assertEquals(expected, read(new OneByteInputStream(bytes), ','));
+        // 只有 BOM 本身
+        assertEquals(List.of(), read(new OneByteInputStream(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}), ','));
+    }
+
+    @Test
+    void fallsBackToGb18030ForNonUtf8Text() throws IOException {
+        byte[] bytes = "id,文字水印\n1,测试「水印」\n".getBytes(Charset.forName("GB18030"));
+        List<List<String>> expected = List.of(List.of("id", "文字水印"), List.of("1", "测试「水印」"));
+        assertEquals(expected, read(new ByteArrayInputStream(bytes), ','));
+        assertEquals(expected, read(new OneByteInputStream(bytes), ','));
+    }
+
+    @Test
+    void detectsGb18030OnceForWholeFile() throws IOException {
+        // "专业" 的 GB18030 字节恰好也是合法的 UTF-8，逐字段判断会把表头按 UTF-8 解码而后续字段按 GB18030 解码
+        byte[] bytes = "id,专业\n1,测试水印\n".getBytes(Charset.forName("GB18030"));
+        List<List<String>> expected = List.of(List.of("id", "专业"), List.of("1", "测试水印"));
+        assertEquals(expected, read(new ByteArrayInputStream(bytes), ','));
+        assertEquals(expected, read(new OneByteInputStream(bytes), ','));
+    }
+
+    @Test
+    void keepsUtf8AfterDetectionWindow() throws IOException {
+        // 编码判断窗口内是合法 UTF-8，窗口之后的非法字节按替换字符解码，不切换编码
+        StringBuilder text = new StringBuilder("id,文字水印\n");
+        while (text.length() < 70_000) {
+            text.append("1,水印\n");
+        }
+        byte[] utf8 = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] gb = "2,测试\n".getBytes(Charset.forName("GB18030"));
+        byte[] bytes = new byte[utf8.length + gb.length];
+        System.arraycopy(utf8, 0, bytes, 0, utf8.length);
+        System.arraycopy(gb, 0, bytes, utf8.length, gb.length);
+        List<List<String>> rows = read(new ByteArrayInputStream(bytes), ',');
+        assertEquals(List.of("id", "文字水印"), rows.getFirst());
+        assertEquals(List.of("1", "水印"), rows.get(rows.size() - 2));
+        assertEquals("2", rows.getLast().get(0));
+        assertTrue(rows.getLast().get(1).contains("\uFFFD"));
+    }
+
+    @Test
+    void readsTabSeparatedText() throws IOException {
+        byte[] bytes = "id\t文字水印\n1\ta,b\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals(List.of(List.of("id", "文字水印"), List.of("1", "a,b")), read(new ByteArrayInputStream(bytes), '\t'));
+    }
+
+    @Test
+    void fieldsLongerThanBufferAreKept() throws IOException {
+        String longValue = "水".repeat(40_000);
+        byte[] bytes = ("1,\"" + longValue + "\"\n2,x\n").getBytes(StandardCharsets.UTF_8);
+        assertEquals(List.of(List.of("1", longValue), List.of("2", "x")), read(new ByteArrayInputStream(bytes), ','));
+    }
+
+    @Test
+    void detectsDelimiterFromFilename() {
+        assertEquals(Character.valueOf(','), DelimitedTextReader.delimiterOf("config.CSV"));
+        assertEquals(Character.valueOf('\t'), DelimitedTextReader.delimiterOf("config.tsv"));
+        assertEquals(Character.valueOf('\t'), DelimitedTextReader.delimiterOf("config.tab"));
+        assertNull(DelimitedTextReader.delimiterOf("config.xlsx"));
+        assertNull(DelimitedTextReader.delimiterOf(null));
+    }
+
+    @SafeVarargs
+    private void assertRows(String text, List<String>... expected) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertEquals(List.of(expected), read(new ByteArrayInputStream(bytes), ','), "整块读取");
+        assertEquals(List.of(expected), read(new OneByteInputStream(bytes), ','), "逐字节读取");
+    }
+
+    private List<List<String>> read(InputStream in, char delimiter) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        int count = DelimitedTextReader.read(in, delimiter, rows::add);
+        assertEquals(rows.size(), count);
+        return rows;
+    }
+
+    /**
+     * 每次最多返回一个字节的输入流
+     */
+    private static class OneByteInputStream extends ByteArrayInputStream {
+
+        OneByteInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
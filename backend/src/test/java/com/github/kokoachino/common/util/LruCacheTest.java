@@ -0,0 +1,178 @@
+package com.github.kokoachino.common.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * LruCache 测试类
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // 访问 a 后 b 成为最久未使用的条目
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getStats().evictionCount());
+    }
+
+    @Test
+    void evictsByWeight() {
+        LruCache<String, byte[]> cache = new LruCache<>(10, value -> value.length);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.put("c", new byte[4]);
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getStats().weight());
+    }
+
+    @Test
+    void skipsEntryHeavierThanLimit() {
+        LruCache<String, byte[]> cache = new LruCache<>(10, value -> value.length);
+        cache.put("small", new byte[4]);
+        cache.put("huge", new byte[11]);
+        assertNull(cache.get("huge"));
+        assertNotNull(cache.get("small"));
+        assertEquals(4, cache.getStats().weight());
+    }
+
+    @Test
+    void replacingEntryUpdatesWeight() {
+        LruCache<String, byte[]> cache = new LruCache<>(10, value -> value.length);
+        cache.put("a", new byte[6]);
+        cache.put("a", new byte[2]);
+        assertEquals(2, cache.getStats().weight());
+        assertEquals(2, cache.remove("a").length);
+        assertEquals(0, cache.getStats().weight());
+    }
+
+    @Test
+    void removeIfDropsMatchingKeys() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        cache.put("1：a", "A");
+        cache.put("1：b", "B");
+        cache.put("2：a", "C");
+        cache.removeIf(key -> key.startsWith("1："));
+        assertEquals(1, cache.getStats().size());
+        assertEquals("C", cache.get("2：a"));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        LruCache.CacheStats stats = cache.getStats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void loaderResultIsCachedAndNullIsNot() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("A", cache.get("a", key -> {
+            calls.incrementAndGet();
+            return "A";
+        }));
+        assertEquals("A", cache.get("a", key -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        assertEquals(1, calls.get());
+        assertNull(cache.get("b", key -> null));
+        assertEquals(1, cache.getStats().size());
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(10);
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("plan", key -> {
+                        calls.incrementAndGet();
+                        try {
+                            // 保持加载进行中，让其余线程都在等待同一次加载
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "compiled";
+                    });
+                }));
+            }
+            start.countDown();
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("compiled", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void loaderFailureIsSharedAndNotCached() throws Exception {
+        LruCache<String, String> cache = new LruCache<>(10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("broken", key -> {
+                loading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("编译失败");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.get("broken", key -> "unexpected"));
+            Thread.sleep(100);
+            release.countDown();
+            Exception firstError = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, firstError.getCause());
+            Exception secondError = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, secondError.getCause());
+            // 失败不会被缓存，之后的访问重新加载
+            assertEquals("retry", cache.get("broken", key -> "retry"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.kokoachino.render;
+
+import org.junit.jupiter.api.Test;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * BlendKernel 测试类
+ * 标量内核以 Graphics2D SRC_OVER 为参照，向量内核（-Dvector 构建时）必须与标量内核逐像素一致
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+class BlendKernelTest {
+
+    private static final int WIDTH = 257;
+    private static final int HEIGHT = 131;
+
+    @Test
+    void scalarMatchesJava2dOnOpaqueTarget() {
+        int[] overlay = overlay(new Random(1));
+        int[] expected = java2d(overlay, target(new Random(2), false), BufferedImage.TYPE_INT_RGB);
+        int[] actual = target(new Random(2), false);
+        new ScalarBlendKernel().blend(overlay, 0, WIDTH, actual, 0, WIDTH, WIDTH, HEIGHT, false);
+        for (int i = 0; i < actual.length; i++) {
+            assertEquals(expected[i] & 0xffffff, actual[i] & 0xffffff, "像素不一致：i=" + i);
+            assertEquals(0xff, actual[i] >>> 24);
+        }
+    }
+
+    @Test
+    void scalarMatchesJava2dOnTranslucentTarget() {
+        int[] overlay = overlay(new Random(3));
+        int[] expected = java2d(overlay, target(new Random(4), true), BufferedImage.TYPE_INT_ARGB);
+        int[] actual = target(new Random(4), true);
+        new ScalarBlendKernel().blend(overlay, 0, WIDTH, actual, 0, WIDTH, WIDTH, HEIGHT, true);
+        for (int i = 0; i < actual.length; i++) {
+            assertEquals(expected[i] >>> 24, actual[i] >>> 24, "透明度不一致：i=" + i);
+            // Java2D 的反预乘查表与精确舍入之间存在误差，按预乘后的通道比较
+            for (int shift = 0; shift < 24; shift += 8) {
+                int e = premultiplied(expected[i], shift);
+                int a = premultiplied(actual[i], shift);
+                assertTrue(Math.abs(e - a) <= 2, "通道误差过大：i=" + i + ", expected=" + e + ", actual=" + a);
+            }
+        }
+    }
+
+    @Test
+    void transparentOverlayPixelsLeaveTargetUntouched() {
+        int[] overlay = new int[WIDTH * HEIGHT];
+        int[] target = target(new Random(5), true);
+        int[] original = target.clone();
+        new ScalarBlendKernel().blend(overlay, 0, WIDTH, target, 0, WIDTH, WIDTH, HEIGHT, true);
+        assertArrayEquals(original, target);
+    }
+
+    @Test
+    void vectorMatchesScalar() throws ReflectiveOperationException {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "未加载 jdk.incubator.vector");
+        BlendKernel vector = (BlendKernel) Class.forName("com.github.kokoachino.render.VectorBlendKernel")
+                .getDeclaredConstructor().newInstance();
+        BlendKernel scalar = new ScalarBlendKernel();
+        Random random = new Random(6);
+        for (boolean dstHasAlpha : new boolean[]{false, true}) {
+            int[] overlay = overlay(random);
+            // 非对齐的起点与宽度，覆盖向量尾部的标量路径
+            int x = 3;
+            int y = 5;
+            int width = WIDTH - 10;
+            int height = HEIGHT - 7;
+            int[] expected = target(random, dstHasAlpha);
+            int[] actual = expected.clone();
+            scalar.blend(overlay, 1, WIDTH, expected, y * WIDTH + x, WIDTH, width, height, dstHasAlpha);
+            vector.blend(overlay, 1, WIDTH, actual, y * WIDTH + x, WIDTH, width, height, dstHasAlpha);
+            assertArrayEquals(expected, actual, vector.name() + "：dstHasAlpha=" + dstHasAlpha);
+        }
+    }
+
+    /**
+     * 随机预乘 ARGB 叠加层，约三分之一全透明、六分之一不透明
+     */
+    private int[] overlay(Random random) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            int kind = random.nextInt(6);
+            int alpha = kind < 2 ? 0 : kind == 2 ? 255 : random.nextInt(256);
+            int color = 0;
+            for (int channel = 0; channel < 3; channel++) {
+                color = color << 8 | random.nextInt(alpha + 1);
+            }
+            pixels[i] = alpha << 24 | color;
+        }
+        return pixels;
+    }
+
+    private int[] target(Random random, boolean hasAlpha) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = hasAlpha ? random.nextInt() : random.nextInt() | 0xff000000;
+        }
+        return pixels;
+    }
+
+    private int[] java2d(int[] overlay, int[] target, int targetType) {
+        BufferedImage source = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        System.arraycopy(overlay, 0, pixels(source), 0, overlay.length);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, targetType);
+        System.arraycopy(target, 0, pixels(image), 0, target.length);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.SrcOver);
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return pixels(image);
+    }
+
+    private int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private int premultiplied(int argb, int shift) {
+        return ((argb >> shift) & 0xff) * (argb >>> 24) / 255;
+    }
+}
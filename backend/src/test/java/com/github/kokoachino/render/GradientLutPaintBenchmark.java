@@ -0,0 +1,60 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.LinearGradientPaint;
+import java.awt.Paint;
+import java.awt.RadialGradientPaint;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+
+/**
+ * 渐变填充基准测试
+ * 在 5000×5000（BaseConfigDTO 画布上限）的 INT_ARGB_PRE 画布上整幅填充，
+ * 对比 GradientLutPaint 与 LinearGradientPaint / RadialGradientPaint（每轮都新建 Paint，与每次渲染新建一致）
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+@Tag("benchmark")
+class GradientLutPaintBenchmark {
+
+    private static final int SIZE = 5000;
+    private static final float[] FRACTIONS = {0f, 0.25f, 0.5f, 0.75f, 1f};
+    private static final Color[] COLORS = {
+            new Color(255, 0, 0, 200), new Color(255, 200, 0, 160), new Color(0, 200, 80, 120),
+            new Color(0, 80, 255, 160), new Color(160, 0, 255, 200)
+    };
+
+    @Test
+    void fillCanvas() throws Exception {
+        BufferedImage canvas = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+        Point2D start = new Point2D.Double(0, 0);
+        Point2D end = new Point2D.Double(SIZE, SIZE * 0.6);
+        Point2D center = new Point2D.Double(SIZE / 2.0, SIZE / 2.0);
+        float radius = SIZE / 2f;
+        Benchmarks.measure("LinearGradientPaint 5000x5000", 3, 10,
+                () -> fill(canvas, new LinearGradientPaint(start, end, FRACTIONS, COLORS)));
+        Benchmarks.measure("GradientLutPaint linear 5000x5000", 3, 10,
+                () -> fill(canvas, GradientLutPaint.linear(start, end, FRACTIONS, COLORS)));
+        Benchmarks.measure("RadialGradientPaint 5000x5000", 3, 10,
+                () -> fill(canvas, new RadialGradientPaint(center, radius, FRACTIONS, COLORS)));
+        Benchmarks.measure("GradientLutPaint radial 5000x5000", 3, 10,
+                () -> fill(canvas, GradientLutPaint.radial(center, radius, FRACTIONS, COLORS)));
+    }
+
+    private int fill(BufferedImage canvas, Paint paint) {
+        Graphics2D g = canvas.createGraphics();
+        try {
+            g.setPaint(paint);
+            g.fillRect(0, 0, SIZE, SIZE);
+        } finally {
+            g.dispose();
+        }
+        return canvas.getRGB(SIZE / 2, SIZE / 2);
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.kokoachino.render;
+
+import org.junit.jupiter.api.Test;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.LinearGradientPaint;
+import java.awt.Paint;
+import java.awt.RadialGradientPaint;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * GradientLutPaint 测试类
+ * 以 Java2D 的 LinearGradientPaint / RadialGradientPaint（NO_CYCLE、sRGB 插值）与按像素中心精确插值的结果为参照逐像素比较
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+class GradientLutPaintTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+
+    /**
+     * 与精确插值结果的逐通道容差（1024 项查找表的量化误差）
+     */
+    private static final int TOLERANCE = 2;
+
+    private static final float[] FRACTIONS = {0f, 0.3f, 0.7f, 1f};
+    private static final Color[] COLORS = {
+            new Color(255, 0, 0, 255), new Color(0, 200, 40, 180), new Color(20, 40, 250, 90), new Color(250, 250, 0, 255)
+    };
+
+    @Test
+    void bakedTableHitsStopColors() {
+        int[] lut = GradientLutPaint.bake(FRACTIONS, COLORS);
+        assertEquals(GradientLutPaint.LUT_SIZE, lut.length);
+        assertEquals(COLORS[0].getRGB(), lut[0]);
+        assertEquals(COLORS[3].getRGB(), lut[GradientLutPaint.LUT_SIZE - 1]);
+    }
+
+    @Test
+    void linearMatchesLinearGradientPaint() {
+        Point2D start = new Point2D.Double(50, 40);
+        Point2D end = new Point2D.Double(330, 250);
+        assertMatches(GradientLutPaint.linear(start, end, FRACTIONS, COLORS),
+                new LinearGradientPaint(start, end, FRACTIONS, COLORS), new AffineTransform(), linearT(start, end));
+    }
+
+    @Test
+    void linearMatchesUnderRotationAndScale() {
+        Point2D start = new Point2D.Double(0, 0);
+        Point2D end = new Point2D.Double(120, 0);
+        AffineTransform transform = AffineTransform.getTranslateInstance(200, 150);
+        transform.rotate(Math.toRadians(30));
+        transform.scale(1.5, 0.8);
+        assertMatches(GradientLutPaint.linear(start, end, FRACTIONS, COLORS),
+                new LinearGradientPaint(start, end, FRACTIONS, COLORS), transform, linearT(start, end));
+    }
+
+    @Test
+    void radialMatchesRadialGradientPaint() {
+        Point2D center = new Point2D.Double(180, 140);
+        assertMatches(GradientLutPaint.radial(center, 160, FRACTIONS, COLORS),
+                new RadialGradientPaint(center, 160, FRACTIONS, COLORS), new AffineTransform(),
+                point -> point.distance(center) / 160);
+    }
+
+    @Test
+    void opaqueStopsReportOpaqueTransparency() {
+        Color[] opaque = {Color.RED, Color.BLUE};
+        float[] fractions = {0f, 1f};
+        assertEquals(Transparency.OPAQUE,
+                GradientLutPaint.linear(new Point2D.Double(), new Point2D.Double(1, 0), fractions, opaque).getTransparency());
+        assertEquals(Transparency.TRANSLUCENT,
+                GradientLutPaint.linear(new Point2D.Double(), new Point2D.Double(1, 0), FRACTIONS, COLORS).getTransparency());
+    }
+
+    /**
+     * 查找表结果与精确插值的误差不超过 TOLERANCE，且不大于 Java2D 自身的误差；与 Java2D 的差异不超过两者误差之和
+     *
+     * @param gradientT 用户空间坐标到渐变参数 t 的映射
+     */
+    private void assertMatches(Paint lutPaint, Paint java2dPaint, AffineTransform transform,
+                               ToDoubleFunction<Point2D> gradientT) {
+        int[] actual = fill(lutPaint, transform);
+        int[] reference = fill(java2dPaint, transform);
+        AffineTransform inverse = inverse(transform);
+        int lutError = 0;
+        int java2dError = 0;
+        for (int i = 0; i < actual.length; i++) {
+            Point2D user = inverse.transform(new Point2D.Double(i % WIDTH + 0.5, i / WIDTH + 0.5), null);
+            int exact = exact(gradientT.applyAsDouble(user));
+            lutError = Math.max(lutError, channelError(actual[i], exact));
+            java2dError = Math.max(java2dError, channelError(reference[i], exact));
+        }
+        assertTrue(lutError <= TOLERANCE, "查找表误差：" + lutError);
+        assertTrue(lutError <= java2dError, "查找表误差 " + lutError + " 大于 Java2D 误差 " + java2dError);
+        for (int i = 0; i < actual.length; i++) {
+            assertTrue(channelError(actual[i], reference[i]) <= lutError + java2dError,
+                    "与 Java2D 不一致：x=" + i % WIDTH + ", y=" + i / WIDTH + ", expected="
+                            + Integer.toHexString(reference[i]) + ", actual=" + Integer.toHexString(actual[i]));
+        }
+    }
+
+    private ToDoubleFunction<Point2D> linearT(Point2D start, Point2D end) {
+        double dx = end.getX() - start.getX();
+        double dy = end.getY() - start.getY();
+        double lengthSq = dx * dx + dy * dy;
+        return point -> ((point.getX() - start.getX()) * dx + (point.getY() - start.getY()) * dy) / lengthSq;
+    }
+
+    /**
+     * 按 t 精确插值色标（非预乘 sRGB，超出 [0, 1] 取两端颜色）
+     */
+    private int exact(double t) {
+        if (t <= FRACTIONS[0]) {
+            return COLORS[0].getRGB();
+        }
+        if (t >= FRACTIONS[FRACTIONS.length - 1]) {
+            return COLORS[COLORS.length - 1].getRGB();
+        }
+        int stop = 0;
+        while (t > FRACTIONS[stop + 1]) {
+            stop++;
+        }
+        double ratio = (t - FRACTIONS[stop]) / (FRACTIONS[stop + 1] - FRACTIONS[stop]);
+        int from = COLORS[stop].getRGB();
+        int to = COLORS[stop + 1].getRGB();
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = (from >>> shift) & 0xff;
+            int b = (to >>> shift) & 0xff;
+            result |= (int) Math.round(a + (b - a) * ratio) << shift;
+        }
+        return result;
+    }
+
+    private int channelError(int a, int b) {
+        int error = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            error = Math.max(error, Math.abs(((a >>> shift) & 0xff) - ((b >>> shift) & 0xff)));
+        }
+        return error;
+    }
+
+    private AffineTransform inverse(AffineTransform transform) {
+        try {
+            return transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private int[] fill(Paint paint, AffineTransform transform) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.transform(transform);
+            g.setPaint(paint);
+            g.fill(inverse(transform).createTransformedShape(new Rectangle(0, 0, WIDTH, HEIGHT)));
+        } finally {
+            g.dispose();
+        }
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.kokoachino.render;
+
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.service.MinioService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * RenderAssetLoader 测试类
+ * 验证外部素材只连接校验过的公网地址
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class RenderAssetLoaderTest {
+
+    @Test
+    void rejectsNonPublicAddresses() throws UnknownHostException {
+        assertFalse(RenderAssetLoader.isPublic(InetAddress.getByName("127.0.0.1")));
+        assertFalse(RenderAssetLoader.isPublic(InetAddress.getByName("10.1.2.3")));
+        assertFalse(RenderAssetLoader.isPublic(InetAddress.getByName("169.254.169.254")));
+        assertFalse(RenderAssetLoader.isPublic(InetAddress.getByName("100.64.0.1")));
+        assertFalse(RenderAssetLoader.isPublic(InetAddress.getByName("fd00::1")));
+        assertTrue(RenderAssetLoader.isPublic(InetAddress.getByName("93.184.216.34")));
+    }
+
+    @Test
+    void allowlistedHostResolvingToLoopbackIsNeverConnected() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            RenderAssetLoader loader = loader(List.of("localhost"));
+            String url = "http://localhost:" + server.getAddress().getPort() + "/logo.png";
+            IOException e = assertThrows(IOException.class, () -> {
+                try (InputStream ignored = loader.openStream(url)) {
+                    fail("不应打开素材流");
+                }
+            });
+            assertInstanceOf(UnknownHostException.class, e);
+            assertEquals("", loader.resolveETag(url));
+            // 解析结果在连接前被拒绝，请求不会到达内网服务
+            assertEquals(0, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void hostOutsideAllowlistIsRejected() {
+        RenderAssetLoader loader = loader(List.of("cdn.example.com"));
+        IOException e = assertThrows(IOException.class, () -> loader.openStream("https://example.org/logo.png"));
+        assertTrue(e.getMessage().contains("白名单"));
+    }
+
+    private RenderAssetLoader loader(List<String> hosts) {
+        MinioService minioService = mock(MinioService.class);
+        when(minioService.getFileUrl("")).thenReturn("http://minio.local/bucket/");
+        SystemProperties properties = new SystemProperties();
+        SystemProperties.RenderConfig config = properties.getRender();
+        config.setAssetTimeout(2);
+        config.setAssetMaxMb(1);
+        config.setAssetAllowedHosts(hosts);
+        return new RenderAssetLoader(minioService, properties);
+    }
+}
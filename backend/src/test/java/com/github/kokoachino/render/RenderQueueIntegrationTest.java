@@ -0,0 +1,189 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import org.junit.jupiter.api.*;
+import org.redisson.Redisson;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * RenderQueue 集成测试
+ * 在真实 Redis（Testcontainers）上运行多个消费者，验证渲染单元只投递一次、宕机节点的待处理消息被认领，以及确认后消息被删除。
+ * 需要 Docker，默认不编译也不运行，使用 mvn test -Pintegration 执行
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+@Tag("integration")
+class RenderQueueIntegrationTest {
+
+    private static final String GROUP_NAME = "render-workers";
+
+    private static GenericContainer<?> redis;
+    private static RedissonClient redisson;
+
+    private final List<RenderQueue> queues = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() {
+        redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+        redis.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://" + redis.getHost() + ":" + redis.getMappedPort(6379));
+        redisson = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (redisson != null) {
+            redisson.shutdown();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @BeforeEach
+    void flush() {
+        redisson.getKeys().flushall();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queues.forEach(RenderQueue::shutdown);
+    }
+
+    @Test
+    void unitsAreDeliveredExactlyOnceAcrossConsumers() throws InterruptedException {
+        Map<String, Integer> deliveries = new ConcurrentHashMap<>();
+        ScheduledExecutorService delays = Executors.newSingleThreadScheduledExecutor();
+        try {
+            for (int i = 0; i < 3; i++) {
+                RenderQueue queue = queue(4, 120);
+                queue.start(unit -> {
+                    String key = unit.taskId() + "/" + unit.item().index();
+                    deliveries.merge(key, 1, Integer::sum);
+                    // 模拟渲染耗时，使多个消费者同时持有消息
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    delays.schedule(() -> done.complete(null), 5, TimeUnit.MILLISECONDS);
+                    return done;
+                });
+            }
+            queues.getFirst().publish(1, job(1, 150));
+            queues.getLast().publish(2, job(2, 50));
+
+            await(() -> deliveries.size() == 200 && stream(1).size() == 0 && stream(2).size() == 0, 30);
+            assertTrue(deliveries.values().stream().allMatch(count -> count == 1), "每个单元只应投递一次：" + deliveries);
+            // 确认后消息从流中删除，消费组中也没有待处理消息
+            assertPendingEmpty(1);
+            assertPendingEmpty(2);
+            long deliveredTotal = queues.stream().mapToLong(queue -> queue.getStats().deliveredCount()).sum();
+            long ackedTotal = queues.stream().mapToLong(queue -> queue.getStats().ackedCount()).sum();
+            assertEquals(200, deliveredTotal);
+            assertEquals(200, ackedTotal);
+            assertTrue(queues.stream().filter(queue -> queue.getStats().deliveredCount() > 0).count() > 1,
+                    "渲染单元应由多个消费者分担");
+        } finally {
+            delays.shutdownNow();
+        }
+    }
+
+    @Test
+    void pendingUnitsOfCrashedConsumerAreReclaimed() throws InterruptedException {
+        RenderQueue crashed = queue(10, 1);
+        Set<Integer> taken = ConcurrentHashMap.newKeySet();
+        crashed.start(unit -> {
+            taken.add(unit.item().index());
+            // 处理中宕机：永不完成，也不确认
+            return new CompletableFuture<>();
+        });
+        crashed.publish(1, job(1, 5));
+        await(() -> taken.size() == 5, 10);
+        crashed.shutdown();
+        assertEquals(5, stream(1).listPending(GROUP_NAME, StreamMessageId.MIN, StreamMessageId.MAX, 100).size());
+
+        Map<Integer, Long> reclaimed = new ConcurrentHashMap<>();
+        Map<Integer, Integer> reclaimCounts = new ConcurrentHashMap<>();
+        RenderQueue survivor = queue(10, 1);
+        survivor.start(unit -> {
+            reclaimed.put(unit.item().index(), unit.deliveries());
+            reclaimCounts.merge(unit.item().index(), 1, Integer::sum);
+            return CompletableFuture.completedFuture(null);
+        });
+        // 空闲超过可见性超时（1秒）后由存活节点在下一次认领周期（1秒）中接管
+        await(() -> reclaimed.size() == 5 && stream(1).size() == 0, 15);
+        assertEquals(taken, reclaimed.keySet());
+        assertTrue(reclaimCounts.values().stream().allMatch(count -> count == 1), "认领的单元只应投递一次：" + reclaimCounts);
+        assertTrue(reclaimed.values().stream().allMatch(count -> count == 2), "认领重投的投递次数应为2：" + reclaimed);
+        assertEquals(5, survivor.getStats().reclaimedCount());
+        assertEquals(0, survivor.getStats().deliveredCount());
+        assertPendingEmpty(1);
+    }
+
+    @Test
+    void acknowledgedUnitsLeaveStreamAndSchedule() throws InterruptedException {
+        RenderQueue queue = queue(2, 120);
+        Set<Integer> handled = ConcurrentHashMap.newKeySet();
+        queue.start(unit -> {
+            handled.add(unit.item().index());
+            return CompletableFuture.completedFuture(null);
+        });
+        queue.publish(3, job(3, 10));
+        await(() -> handled.size() == 10 && stream(3).size() == 0, 10);
+        assertPendingEmpty(3);
+        // 队列清空后团队移出调度集合
+        await(() -> !redisson.getScoredSortedSet("render：queue：vtime", StringCodec.INSTANCE).contains("3"), 5);
+        assertEquals(0, queue.depth(3));
+    }
+
+    private RenderQueue queue(int prefetch, int visibilityTimeoutSeconds) {
+        SystemProperties properties = new SystemProperties();
+        SystemProperties.RenderConfig config = properties.getRender();
+        config.setQueuePrefetch(prefetch);
+        config.setQueueVisibilityTimeout(visibilityTimeoutSeconds);
+        config.setDefaultTeamWeight(1);
+        config.setTeamWeights(Map.of());
+        RenderQueue queue = new RenderQueue(redisson, new ObjectMapper(), properties);
+        queues.add(queue);
+        return queue;
+    }
+
+    private RenderJob job(int taskId, int count) {
+        List<RenderJob.Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new RenderJob.Item(i, i + ".jpg", "sources/" + taskId + "/" + i, null, i + ".jpg", null));
+        }
+        return new RenderJob(taskId, "T" + taskId, 1, 1, null, items);
+    }
+
+    private RStream<String, String> stream(int teamId) {
+        return redisson.getStream("render：queue：" + teamId, StringCodec.INSTANCE);
+    }
+
+    private void assertPendingEmpty(int teamId) {
+        assertEquals(0, stream(teamId).size());
+        assertTrue(stream(teamId).listPending(GROUP_NAME, StreamMessageId.MIN, StreamMessageId.MAX, 100).isEmpty());
+    }
+
+    private static void await(BooleanSupplier condition, int timeoutSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("等待超时");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.api.stream.StreamReadGroupParams;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.protocol.ScoredEntry;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * RenderQueue 测试类
+ * 以内存中的虚拟时间集合与团队流模拟 Redis，验证加权公平轮询的领取顺序
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class RenderQueueTest {
+
+    private static final int PREFETCH = 10;
+
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+    private final Map<Integer, Deque<Map<String, String>>> backlogs = new HashMap<>();
+    private final List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+    private RenderQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void pollsTeamsByVirtualTimeInProportionToWeight() throws InterruptedException {
+        // 团队1权重3，团队2与团队3使用默认权重1；团队3只有一个单元
+        queue = queue(PREFETCH, Map.of(1, 3), Map.of(1, 20, 2, 20, 3, 1));
+        queue.start(unit -> {
+            delivered.add(unit.taskId());
+            // 不完成处理，许可耗尽后不再领取
+            return new CompletableFuture<>();
+        });
+        awaitDelivered(PREFETCH);
+        // 第一轮：1×3、2×1、3×1；第二轮：1×3、2×1，团队3没有可领取的单元；第三轮：团队1领取剩余的1个许可
+        assertEquals(List.of(1, 1, 1, 2, 3, 1, 1, 1, 2, 1), List.copyOf(delivered));
+        assertEquals(7.0 / 3, scores.get("1"), 1e-9);
+        assertEquals(2.0, scores.get("2"), 1e-9);
+        // 团队3的单元处理中未确认，流不为空，仍留在调度集合中
+        assertEquals(1.0, scores.get("3"), 1e-9);
+    }
+
+    @Test
+    void drainedTeamLeavesScheduleAfterAcknowledgement() throws InterruptedException {
+        queue = queue(PREFETCH, Map.of(), Map.of(1, 1));
+        queue.start(unit -> {
+            delivered.add(unit.taskId());
+            return CompletableFuture.completedFuture(null);
+        });
+        awaitDelivered(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scores.containsKey("1") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(scores.containsKey("1"), "没有积压的团队应移出调度集合");
+    }
+
+    @Test
+    void singlePermitServesLowestVirtualTimeFirst() throws InterruptedException {
+        // 每次只领取一个单元：总是领取虚拟时间最小的团队，分数相同时按团队ID，长期按 4:1 分配
+        queue = queue(1, Map.of(1, 4), Map.of(1, 20, 2, 20));
+        queue.start(unit -> {
+            delivered.add(unit.taskId());
+            return delivered.size() < 10 ? CompletableFuture.completedFuture(null) : new CompletableFuture<>();
+        });
+        awaitDelivered(10);
+        assertEquals(List.of(1, 2, 1, 1, 1, 1, 2, 1, 1, 1), List.copyOf(delivered));
+    }
+
+    @Test
+    void backloggedTeamStartsAtCurrentMinimumVirtualTime() {
+        scores.put("1", 5.0);
+        scores.put("2", 8.0);
+        queue = queue(PREFETCH, Map.of(), Map.of(1, 20, 2, 20));
+        queue.publish(3, new RenderJob(3, "T3", 1, 1, null, List.of(item(0), item(1))));
+        // 新团队从最小虚拟时间开始，不因空闲期获得额外额度
+        assertEquals(5.0, scores.get("3"), 1e-9);
+        // 已有积压的团队再次发布时虚拟时间保持不变
+        queue.publish(2, new RenderJob(4, "T4", 1, 1, null, List.of(item(0))));
+        assertEquals(8.0, scores.get("2"), 1e-9);
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // 许可耗尽后不应继续领取
+        Thread.sleep(100);
+        assertEquals(count, delivered.size());
+    }
+
+    /**
+     * 创建连接模拟 Redis 的队列，团队积压的单元以团队ID作为任务ID，便于按任务ID还原领取顺序
+     */
+    @SuppressWarnings("unchecked")
+    private RenderQueue queue(int prefetch, Map<Integer, Integer> weights, Map<Integer, Integer> backlog) {
+        RedissonClient redisson = mock(RedissonClient.class);
+        RScoredSortedSet<String> virtualTimes = mock(RScoredSortedSet.class);
+        when(virtualTimes.entryRange(0, -1)).thenAnswer(invocation -> sortedEntries());
+        when(virtualTimes.readAll()).thenAnswer(invocation -> new HashSet<>(scores.keySet()));
+        when(virtualTimes.firstScore()).thenAnswer(invocation ->
+                sortedEntries().stream().findFirst().map(ScoredEntry::getScore).orElse(null));
+        when(virtualTimes.addScore(anyString(), any(Number.class))).thenAnswer(invocation ->
+                scores.merge(invocation.getArgument(0), ((Number) invocation.getArgument(1)).doubleValue(), Double::sum));
+        when(virtualTimes.addIfGreater(anyDouble(), anyString())).thenAnswer(invocation -> {
+            String member = invocation.getArgument(1);
+            double score = invocation.getArgument(0);
+            Double current = scores.get(member);
+            if (current == null || score > current) {
+                scores.put(member, score);
+                return true;
+            }
+            return false;
+        });
+        when(virtualTimes.remove(any())).thenAnswer(invocation -> scores.remove(invocation.getArgument(0)) != null);
+        doReturn(virtualTimes).when(redisson).getScoredSortedSet(eq("render：queue：vtime"), any(Codec.class));
+        for (int teamId = 1; teamId <= 3; teamId++) {
+            Deque<Map<String, String>> units = backlogs.computeIfAbsent(teamId, k -> new ArrayDeque<>());
+            for (int i = 0; i < backlog.getOrDefault(teamId, 0); i++) {
+                units.add(fields(teamId, i));
+            }
+            if (!units.isEmpty()) {
+                scores.putIfAbsent(String.valueOf(teamId), 0.0);
+            }
+            doReturn(stream(teamId, units)).when(redisson).getStream(eq("render：queue：" + teamId), any(Codec.class));
+        }
+        SystemProperties properties = new SystemProperties();
+        SystemProperties.RenderConfig config = properties.getRender();
+        config.setQueuePrefetch(prefetch);
+        config.setQueueVisibilityTimeout(120);
+        config.setDefaultTeamWeight(1);
+        config.setTeamWeights(weights);
+        return new RenderQueue(redisson, new ObjectMapper(), properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RStream<String, String> stream(Integer teamId, Deque<Map<String, String>> units) {
+        RStream<String, String> stream = mock(RStream.class);
+        // 与 Redis 流一致：已领取未确认的消息仍计入流长度，确认后删除
+        AtomicInteger pending = new AtomicInteger();
+        when(stream.size()).thenAnswer(invocation -> (long) units.size() + pending.get());
+        when(stream.remove(any(StreamMessageId[].class))).thenAnswer(invocation ->
+                (long) pending.addAndGet(-invocation.getArguments().length));
+        when(stream.readGroup(anyString(), anyString(), any(StreamReadGroupArgs.class))).thenAnswer(invocation -> {
+            int count = ((StreamReadGroupParams) invocation.getArgument(2)).getCount();
+            Map<StreamMessageId, Map<String, String>> messages = new LinkedHashMap<>();
+            while (messages.size() < count && !units.isEmpty()) {
+                messages.put(new StreamMessageId(System.currentTimeMillis(), teamId * 1000L + messages.size()),
+                        units.poll());
+            }
+            pending.addAndGet(messages.size());
+            return messages;
+        });
+        when(stream.add(any(StreamAddArgs.class))).thenAnswer(invocation -> {
+            units.add(fields(teamId, units.size()));
+            return new StreamMessageId(System.currentTimeMillis(), units.size());
+        });
+        return stream;
+    }
+
+    private List<ScoredEntry<String>> sortedEntries() {
+        List<ScoredEntry<String>> entries = new ArrayList<>();
+        scores.forEach((member, score) -> entries.add(new ScoredEntry<>(score, member)));
+        // 与 Redis 有序集合一致：分数相同时按成员字典序
+        entries.sort(Comparator.comparing((ScoredEntry<String> entry) -> entry.getScore())
+                .thenComparing(ScoredEntry::getValue));
+        return entries;
+    }
+
+    private Map<String, String> fields(Integer teamId, int index) {
+        return Map.of("taskId", String.valueOf(teamId), "index", String.valueOf(index),
+                "fileName", index + ".jpg", "sourceKey", "sources/" + index, "entryName", index + ".jpg");
+    }
+
+    private RenderJob.Item item(int index) {
+        return new RenderJob.Item(index, index + ".jpg", "sources/" + index, null, index + ".jpg", null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.kokoachino.render;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.service.MinioService;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * RenderResultCache 测试类
+ * 验证缓存键覆盖影响渲染结果的全部输入
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class RenderResultCacheTest {
+
+    @Test
+    void keyChangesWithImageAssetETag() {
+        RenderResultCache cache = cache(true);
+        RowBinding binding = new RowBinding(List.of("水印"), List.of("https://cdn.example.com/logo.png"));
+        String key = cache.key("hash", 1, 3, "jpg", binding, List.of("\"etag-1\""));
+        assertNotNull(key);
+        assertEquals(key, cache.key("hash", 1, 3, "jpg", binding, List.of("\"etag-1\"")));
+        // 素材在原地址更新后不再命中旧结果
+        assertNotEquals(key, cache.key("hash", 1, 3, "jpg", binding, List.of("\"etag-2\"")));
+        assertNotEquals(key, cache.key("hash", 1, 3, "jpg", binding, List.of()));
+        assertNotEquals(key, cache.key("hash", 1, 4, "jpg", binding, List.of("\"etag-1\"")));
+        assertNotEquals(key, cache.key("hash", 1, 3, "png", binding, List.of("\"etag-1\"")));
+        assertNotEquals(key, cache.key("hash", 1, 3, "jpg", null, List.of("\"etag-1\"")));
+    }
+
+    @Test
+    void noKeyWhenDisabledOrVersionUnknown() {
+        assertNull(cache(false).key("hash", 1, 3, "jpg", null, List.of()));
+        assertNull(cache(true).key(null, 1, 3, "jpg", null, List.of()));
+        assertNull(cache(true).key("hash", 1, null, "jpg", null, List.of()));
+    }
+
+    private RenderResultCache cache(boolean enabled) {
+        SystemProperties properties = new SystemProperties();
+        SystemProperties.RenderConfig config = properties.getRender();
+        config.setResultCacheEnabled(enabled);
+        config.setResultCacheMaxMb(16);
+        config.setEncodePreset("balanced");
+        return new RenderResultCache(mock(RedissonClient.class), mock(MinioService.class), new ObjectMapper(), properties);
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.kokoachino.render;
+
+import org.junit.jupiter.api.Test;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Kernel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * ShadowBlur 测试类
+ * 以 ConvolveOp 高斯卷积（σ = 模糊半径 / 2）为参照，三次盒式模糊的逐像素误差应在容差内
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+class ShadowBlurTest {
+
+    /**
+     * 三次盒式模糊与高斯模糊的逐像素 alpha 容差（小半径时盒宽取整误差最大，实测约 8）
+     */
+    private static final int TOLERANCE = 12;
+
+    @Test
+    void boxRadiiApproximateGaussianVariance() {
+        for (int blur = 2; blur <= 80; blur++) {
+            double sigma = blur / 2.0;
+            double variance = 0;
+            for (int radius : ShadowBlur.boxRadii(sigma)) {
+                int width = radius * 2 + 1;
+                variance += (width * width - 1) / 12.0;
+            }
+            assertEquals(sigma * sigma, variance, Math.max(1.0, sigma * sigma * 0.15), "blur=" + blur);
+        }
+    }
+
+    @Test
+    void textShadowMatchesGaussianBlur() {
+        FontRenderContext frc = new FontRenderContext(new AffineTransform(), true, true);
+        Shape text = new TextLayout("水印 Shadow", new Font(Font.SANS_SERIF, Font.BOLD, 64), frc)
+                .getOutline(AffineTransform.getTranslateInstance(10, 80));
+        for (int blur : new int[]{4, 10, 24}) {
+            assertMatchesGaussian(text, new Color(0, 0, 0, 160), blur);
+        }
+    }
+
+    @Test
+    void ellipseShadowMatchesGaussianBlur() {
+        assertMatchesGaussian(new Ellipse2D.Double(0, 0, 200, 120), new Color(40, 80, 200), 16);
+    }
+
+    @Test
+    void shadowIsPremultipliedWithColor() {
+        Color color = new Color(200, 100, 50, 128);
+        BufferedImage shadow = ShadowBlur.render(new Ellipse2D.Double(0, 0, 100, 100), color, 6, 12);
+        assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, shadow.getType());
+        int center = pixels(shadow)[(shadow.getHeight() / 2) * shadow.getWidth() + shadow.getWidth() / 2];
+        int alpha = center >>> 24;
+        assertEquals(128, alpha, 1);
+        assertEquals(200 * alpha / 255.0, (center >> 16) & 0xff, 1);
+        assertEquals(100 * alpha / 255.0, (center >> 8) & 0xff, 1);
+        assertEquals(50 * alpha / 255.0, center & 0xff, 1);
+    }
+
+    private void assertMatchesGaussian(Shape shape, Color color, int blur) {
+        int padding = blur * 2;
+        BufferedImage shadow = ShadowBlur.render(shape, color, blur, padding);
+        BufferedImage reference = gaussian(shape, color, blur, padding);
+        assertEquals(reference.getWidth(), shadow.getWidth());
+        assertEquals(reference.getHeight(), shadow.getHeight());
+        int[] actual = pixels(shadow);
+        int[] expected = pixels(reference);
+        int maxError = 0;
+        for (int i = 0; i < actual.length; i++) {
+            maxError = Math.max(maxError, Math.abs((actual[i] >>> 24) - (expected[i] >>> 24)));
+        }
+        assertTrue(maxError <= TOLERANCE, "blur=" + blur + " 最大误差：" + maxError);
+    }
+
+    /**
+     * 参照实现：抗锯齿填充后用可分离的高斯核做 ConvolveOp 卷积（画布外视为透明）
+     */
+    private BufferedImage gaussian(Shape shape, Color color, int blur, int padding) {
+        Rectangle bounds = shape.getBounds();
+        int width = bounds.width + padding * 2;
+        int height = bounds.height + padding * 2;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.translate(padding - bounds.x, padding - bounds.y);
+            g.setColor(color);
+            g.fill(shape);
+        } finally {
+            g.dispose();
+        }
+        float[] weights = gaussianWeights(blur / 2.0);
+        BufferedImage horizontal = new ConvolveOp(new Kernel(weights.length, 1, weights), ConvolveOp.EDGE_ZERO_FILL, null)
+                .filter(pad(image, weights.length / 2), null);
+        BufferedImage both = new ConvolveOp(new Kernel(1, weights.length, weights), ConvolveOp.EDGE_ZERO_FILL, null)
+                .filter(horizontal, null);
+        int r = weights.length / 2;
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D rg = result.createGraphics();
+        try {
+            rg.drawImage(both.getSubimage(r, r, width, height), 0, 0, null);
+        } finally {
+            rg.dispose();
+        }
+        return result;
+    }
+
+    /**
+     * 四周补透明像素，避免 EDGE_ZERO_FILL 把卷积核覆盖不到的边缘直接清零
+     */
+    private BufferedImage pad(BufferedImage image, int r) {
+        BufferedImage padded = new BufferedImage(image.getWidth() + r * 2, image.getHeight() + r * 2,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = padded.createGraphics();
+        try {
+            g.drawImage(image, r, r, null);
+        } finally {
+            g.dispose();
+        }
+        return padded;
+    }
+
+    private float[] gaussianWeights(double sigma) {
+        int r = (int) Math.ceil(sigma * 3);
+        float[] weights = new float[r * 2 + 1];
+        float sum = 0;
+        for (int i = -r; i <= r; i++) {
+            weights[i + r] = (float) Math.exp(-(i * i) / (2 * sigma * sigma));
+            sum += weights[i + r];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    private int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
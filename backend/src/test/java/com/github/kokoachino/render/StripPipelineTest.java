@@ -0,0 +1,198 @@
+package com.github.kokoachino.render;
+
+import org.junit.jupiter.api.Test;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * StripPipeline 测试类
+ * 分块渲染结果必须与整图解码后合成的结果逐像素一致
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-03
+ */
+class StripPipelineTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 470;
+    private static final int STRIP_HEIGHT = 64;
+
+    @Test
+    void baselineJpegMatchesFullRender() throws IOException {
+        assertMatchesFullRender(encode(source(BufferedImage.TYPE_3BYTE_BGR), "jpg", false), false);
+    }
+
+    @Test
+    void progressiveJpegMatchesFullRender() throws IOException {
+        assertMatchesFullRender(encode(source(BufferedImage.TYPE_3BYTE_BGR), "jpg", true), false);
+    }
+
+    @Test
+    void pngWithAlphaMatchesFullRender() throws IOException {
+        byte[] png = encode(source(BufferedImage.TYPE_4BYTE_ABGR), "png", false);
+        assertMatchesFullRender(png, true);
+        // 输出 JPEG 时透明区域以白色填充
+        assertMatchesFullRender(png, false);
+    }
+
+    @Test
+    void interlacedPngMatchesFullRender() throws IOException {
+        assertMatchesFullRender(encode(source(BufferedImage.TYPE_3BYTE_BGR), "png", true), false);
+    }
+
+    @Test
+    void closeBeforeReadingStopsDecoder() throws IOException {
+        byte[] jpg = encode(source(BufferedImage.TYPE_3BYTE_BGR), "jpg", false);
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(jpg))) {
+            ImageReader reader = ImageIO.getImageReaders(iis).next();
+            try {
+                reader.setInput(iis, false, true);
+                StripPipeline pipeline = new StripPipeline(reader, List.of(), false, STRIP_HEIGHT);
+                Raster raster = pipeline.image().getRaster();
+                raster.getDataElements(0, 0, WIDTH, 1, null);
+                assertClosesPromptly(pipeline);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @Test
+    void readingBackwardsIsRejected() throws IOException {
+        byte[] png = encode(source(BufferedImage.TYPE_3BYTE_BGR), "png", false);
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(png))) {
+            ImageReader reader = ImageIO.getImageReaders(iis).next();
+            try {
+                reader.setInput(iis, false, true);
+                try (StripPipeline pipeline = new StripPipeline(reader, List.of(), false, STRIP_HEIGHT)) {
+                    Raster raster = pipeline.image().getRaster();
+                    raster.getDataElements(0, STRIP_HEIGHT * 2, WIDTH, 1, null);
+                    assertThrows(IllegalStateException.class, () -> raster.getDataElements(0, 0, WIDTH, 1, null));
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void assertMatchesFullRender(byte[] encoded, boolean keepAlpha) throws IOException {
+        List<RenderOverlay> overlays = overlays();
+        BufferedImage expected = fullRender(ImageIO.read(new ByteArrayInputStream(encoded)), overlays, keepAlpha);
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            ImageReader reader = ImageIO.getImageReaders(iis).next();
+            try {
+                reader.setInput(iis, false, true);
+                try (StripPipeline pipeline = new StripPipeline(reader, overlays, keepAlpha, STRIP_HEIGHT)) {
+                    Raster raster = pipeline.image().getRaster();
+                    int[] row = null;
+                    for (int y = 0; y < HEIGHT; y++) {
+                        row = (int[]) raster.getDataElements(0, y, WIDTH, 1, row);
+                        int[] expectedRow = expected.getRGB(0, y, WIDTH, 1, null, 0, WIDTH);
+                        for (int x = 0; x < WIDTH; x++) {
+                            int actual = keepAlpha ? row[x] : row[x] | 0xff000000;
+                            if (actual != expectedRow[x]) {
+                                fail("像素不一致：x=" + x + ", y=" + y + ", expected=" + Integer.toHexString(expectedRow[x])
+                                        + ", actual=" + Integer.toHexString(actual));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage fullRender(BufferedImage source, List<RenderOverlay> overlays, boolean keepAlpha) {
+        BufferedImage target = new BufferedImage(WIDTH, HEIGHT,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(source, 0, 0, keepAlpha ? null : Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        for (RenderOverlay overlay : overlays) {
+            AlphaBlender.blend(overlay.image(), target, overlay.x(), overlay.y());
+        }
+        return target;
+    }
+
+    /**
+     * 跨越多个条带、并超出右边界的叠加层
+     */
+    private List<RenderOverlay> overlays() {
+        BufferedImage image = new BufferedImage(300, 150, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(new Color(255, 0, 0, 128));
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 90));
+            g.drawString("水印", 10, 110);
+        } finally {
+            g.dispose();
+        }
+        return List.of(new RenderOverlay(image, 400, 100), new RenderOverlay(image, 20, HEIGHT - 100));
+    }
+
+    private BufferedImage source(int type) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(30, 120, 200, 255), WIDTH, HEIGHT, new Color(250, 200, 40, 90)));
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            Random random = new Random(1);
+            for (int i = 0; i < 40; i++) {
+                g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 60 + random.nextInt(196)));
+                g.fillOval(random.nextInt(WIDTH), random.nextInt(HEIGHT), 20 + random.nextInt(200), 20 + random.nextInt(200));
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private byte[] encode(BufferedImage image, String format, boolean progressive) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(progressive ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private void assertClosesPromptly(StripPipeline pipeline) {
+        Thread closer = Thread.ofPlatform().start(pipeline::close);
+        try {
+            closer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertFalse(closer.isAlive(), "关闭流水线时解码线程未退出");
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.kokoachino.service.impl;
+
+import com.github.kokoachino.common.enums.BatchTaskModeEnum;
+import com.github.kokoachino.common.exception.BizException;
+import com.github.kokoachino.common.result.ResultCode;
+import com.github.kokoachino.common.util.UserContext;
+import com.github.kokoachino.config.SystemProperties;
+import com.github.kokoachino.mapper.BatchTaskMapper;
+import com.github.kokoachino.model.entity.BatchTask;
+import com.github.kokoachino.model.vo.UserVO;
+import com.github.kokoachino.service.MinioService;
+import com.github.kokoachino.service.OperationLogService;
+import com.github.kokoachino.service.PointService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.mock.web.MockMultipartFile;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * BatchTaskServiceImpl 测试类
+ * 验证前端完成接口只能结算前端执行的任务
+ *
+ * @author Kokoa_Chino
+ * @date 2026-03-04
+ */
+class BatchTaskServiceImplTest {
+
+    private static final int USER_ID = 7;
+
+    private final BatchTaskMapper batchTaskMapper = mock(BatchTaskMapper.class);
+    private final PointService pointService = mock(PointService.class);
+    private final MinioService minioService = mock(MinioService.class);
+    private BatchTaskServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock lock = mock(RLock.class);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        service = new BatchTaskServiceImpl(batchTaskMapper, pointService, minioService, new SystemProperties(),
+                redissonClient, mock(OperationLogService.class));
+        UserContext.setUser(UserVO.builder().id(USER_ID).username("tester").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+    }
+
+    @Test
+    void rejectsClientCompletionOfServerRenderedTask() {
+        when(batchTaskMapper.selectById(1)).thenReturn(task(1, BatchTaskModeEnum.SERVER));
+        MockMultipartFile zip = new MockMultipartFile("resultZip", "result.zip", "application/zip", new byte[]{1});
+        BizException e = assertThrows(BizException.class, () -> service.completeTask(1, 0, zip, null));
+        assertEquals(ResultCode.BATCH_TASK_SERVER_RENDERED, e.getResultCode());
+        // 渲染进行中不能返还点数，也不能写入结果
+        verifyNoInteractions(pointService, minioService);
+        verify(batchTaskMapper, never()).updateById(any(BatchTask.class));
+    }
+
+    @Test
+    void settlesClientTask() {
+        when(batchTaskMapper.selectById(2)).thenReturn(task(2, BatchTaskModeEnum.CLIENT));
+        service.completeTask(2, 8, null, "{}");
+        verify(pointService).refundPoints(eq(1), eq(USER_ID), eq(2), eq("batch_task"), eq("T2"), anyString());
+        verify(batchTaskMapper).updateById(argThat((BatchTask task) ->
+                task.getSuccessCount() == 8 && task.getRefundedPoints() == 2 && task.getCompletedAt() != null));
+    }
+
+    private BatchTask task(int id, BatchTaskModeEnum mode) {
+        BatchTask task = new BatchTask();
+        task.setId(id);
+        task.setTaskNo("T" + id);
+        task.setTeamId(1);
+        task.setCreatedById(USER_ID);
+        task.setMode(mode.getValue());
+        task.setImageCount(10);
+        task.setDeductedPoints(10);
+        return task;
+    }
+}